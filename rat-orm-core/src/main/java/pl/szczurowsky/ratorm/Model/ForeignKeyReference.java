@@ -0,0 +1,117 @@
+package pl.szczurowsky.ratorm.Model;
+
+import pl.szczurowsky.ratorm.database.Database;
+import pl.szczurowsky.ratorm.exception.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+/**
+ * Lazy foreign key. Field of this type annotated with @ModelField(isForeignKey = true) keeps only serialized key,
+ * referenced model is fetched on first {@link #get()}
+ * @param <T> Referenced model class
+ */
+public final class ForeignKeyReference<T extends BaseModel> {
+
+    /**
+     * Separator of primary key name and serialized value
+     */
+    public static final String SEPARATOR = "#__#";
+
+    /**
+     * Referenced model class
+     */
+    private final Class<T> modelClass;
+
+    /**
+     * Serialized key, null when reference was created from model
+     */
+    private final String serializedKey;
+
+    /**
+     * Database used to fetch model, null when reference was created from model
+     */
+    private final Database database;
+
+    private volatile boolean loaded;
+
+    private volatile T model;
+
+    public ForeignKeyReference(Class<T> modelClass, String serializedKey, Database database) {
+        this.modelClass = modelClass;
+        this.serializedKey = serializedKey;
+        this.database = database;
+    }
+
+    private ForeignKeyReference(Class<T> modelClass, T model) {
+        this(modelClass, null, null);
+        this.model = model;
+        this.loaded = true;
+    }
+
+    /**
+     * Create reference to model
+     * @param <T> Referenced model class
+     * @param model Referenced model
+     * @return Loaded reference
+     */
+    public static <T extends BaseModel> ForeignKeyReference<T> of(T model) {
+        return new ForeignKeyReference<>((Class<T>) model.getClass(), model);
+    }
+
+    public Class<T> getModelClass() {
+        return modelClass;
+    }
+
+    /**
+     * Get key as stored in database
+     * @return Serialized key or null when reference was created from model
+     */
+    public String getSerializedKey() {
+        return serializedKey;
+    }
+
+    /**
+     * Is referenced model already fetched
+     * @return true when {@link #get()} won't query database
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Set referenced model without fetching it, used when model is already loaded
+     * @param model Referenced model
+     */
+    public void load(T model) {
+        synchronized (this) {
+            this.model = model;
+            this.loaded = true;
+        }
+    }
+
+    /**
+     * Get referenced model, fetched on first call
+     * @return Referenced model or null when it doesn't exist
+     * @throws NotConnectedToDatabaseException Database is not connected
+     * @throws ModelNotInitializedException Referenced model wasn't initialized
+     * @throws ModelAnnotationMissingException Referenced model is not using @Model annotation
+     * @throws NoSerializerFoundException Serializer of primary key wasn't found
+     * @throws InvocationTargetException Serializer wasn't able to (de)serialize value
+     * @throws InstantiationException Wasn't able to create referenced model
+     * @throws IllegalAccessException Wasn't able to access referenced model
+     */
+    public T get() throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (loaded)
+            return model;
+        synchronized (this) {
+            if (!loaded) {
+                int separator = serializedKey.indexOf(SEPARATOR);
+                List<T> models = database.fetchMatching(modelClass, serializedKey.substring(0, separator), serializedKey.substring(separator + SEPARATOR.length()));
+                model = models.isEmpty() ? null : models.get(0);
+                loaded = true;
+            }
+            return model;
+        }
+    }
+}
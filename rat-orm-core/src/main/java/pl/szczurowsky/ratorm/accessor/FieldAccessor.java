@@ -0,0 +1,74 @@
+package pl.szczurowsky.ratorm.accessor;
+
+/**
+ * Reads and writes value of one model field.
+ * Primitive methods let callers skip boxing when field is declared with compatible primitive type.
+ */
+public interface FieldAccessor {
+
+    /**
+     * Get value of field
+     * @param model Model instance
+     * @return Value of field (boxed if primitive)
+     */
+    Object get(Object model);
+
+    /**
+     * Set value of field
+     * @param model Model instance
+     * @param value New value
+     */
+    void set(Object model, Object value);
+
+    /**
+     * Get value of field as int
+     * @param model Model instance
+     * @return Value of field
+     */
+    default int getInt(Object model) {
+        return ((Number) get(model)).intValue();
+    }
+
+    /**
+     * Get value of field as long
+     * @param model Model instance
+     * @return Value of field
+     */
+    default long getLong(Object model) {
+        return ((Number) get(model)).longValue();
+    }
+
+    /**
+     * Get value of field as double
+     * @param model Model instance
+     * @return Value of field
+     */
+    default double getDouble(Object model) {
+        return ((Number) get(model)).doubleValue();
+    }
+
+    /**
+     * Get value of field as boolean
+     * @param model Model instance
+     * @return Value of field
+     */
+    default boolean getBoolean(Object model) {
+        return (Boolean) get(model);
+    }
+
+    default void setInt(Object model, int value) {
+        set(model, value);
+    }
+
+    default void setLong(Object model, long value) {
+        set(model, value);
+    }
+
+    default void setDouble(Object model, double value) {
+        set(model, value);
+    }
+
+    default void setBoolean(Object model, boolean value) {
+        set(model, value);
+    }
+}
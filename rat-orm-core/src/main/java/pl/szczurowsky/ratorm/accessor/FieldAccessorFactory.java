@@ -0,0 +1,26 @@
+package pl.szczurowsky.ratorm.accessor;
+
+import java.lang.reflect.Field;
+
+/**
+ * Creates accessors for model fields while model is initialized
+ */
+public interface FieldAccessorFactory {
+
+    /**
+     * Accessors bound to pre-resolved method handles
+     */
+    FieldAccessorFactory METHOD_HANDLES = MethodHandleFieldAccessor::new;
+
+    /**
+     * Accessors using plain Field.get/Field.set
+     */
+    FieldAccessorFactory REFLECTION = ReflectionFieldAccessor::new;
+
+    /**
+     * Create accessor for field
+     * @param field Reflected field
+     * @return Accessor of field
+     */
+    FieldAccessor create(Field field);
+}
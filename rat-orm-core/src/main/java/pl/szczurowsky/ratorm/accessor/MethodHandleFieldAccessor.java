@@ -0,0 +1,209 @@
+package pl.szczurowsky.ratorm.accessor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Accessor bound to method handles resolved once per field.
+ * Primitive getters and setters are adapted to exact types, so reading int, long, double or boolean field doesn't allocate.
+ * Int setter of short and byte fields and double setter of float fields narrow value like a cast.
+ */
+public class MethodHandleFieldAccessor implements FieldAccessor {
+
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final MethodHandle intGetter;
+    private final MethodHandle longGetter;
+    private final MethodHandle doubleGetter;
+    private final MethodHandle booleanGetter;
+    private final MethodHandle intSetter;
+    private final MethodHandle longSetter;
+    private final MethodHandle doubleSetter;
+    private final MethodHandle booleanSetter;
+
+    public MethodHandleFieldAccessor(Field field) {
+        field.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle rawGetter;
+        MethodHandle rawSetter = null;
+        try {
+            rawGetter = lookup.unreflectGetter(field);
+            // Final fields are populated through constructor
+            if (!Modifier.isFinal(field.getModifiers()))
+                rawSetter = lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access field " + field, e);
+        }
+        this.getter = rawGetter.asType(MethodType.methodType(Object.class, Object.class));
+        this.intGetter = adapt(field, rawGetter, MethodType.methodType(int.class, Object.class));
+        this.longGetter = adapt(field, rawGetter, MethodType.methodType(long.class, Object.class));
+        this.doubleGetter = adapt(field, rawGetter, MethodType.methodType(double.class, Object.class));
+        this.booleanGetter = adapt(field, rawGetter, MethodType.methodType(boolean.class, Object.class));
+        if (rawSetter != null) {
+            this.setter = rawSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            this.intSetter = field.getType() == short.class || field.getType() == byte.class
+                    ? narrow(rawSetter, MethodType.methodType(void.class, Object.class, int.class))
+                    : adapt(field, rawSetter, MethodType.methodType(void.class, Object.class, int.class));
+            this.longSetter = adapt(field, rawSetter, MethodType.methodType(void.class, Object.class, long.class));
+            this.doubleSetter = field.getType() == float.class
+                    ? narrow(rawSetter, MethodType.methodType(void.class, Object.class, double.class))
+                    : adapt(field, rawSetter, MethodType.methodType(void.class, Object.class, double.class));
+            this.booleanSetter = adapt(field, rawSetter, MethodType.methodType(void.class, Object.class, boolean.class));
+        }
+        else {
+            this.setter = null;
+            this.intSetter = null;
+            this.longSetter = null;
+            this.doubleSetter = null;
+            this.booleanSetter = null;
+        }
+    }
+
+    /**
+     * Adapt handle to primitive type, only for primitive fields and widening conversions
+     */
+    private static MethodHandle adapt(Field field, MethodHandle handle, MethodType type) {
+        if (!field.getType().isPrimitive())
+            return null;
+        try {
+            return handle.asType(type);
+        } catch (WrongMethodTypeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adapt setter to wider primitive type, value is narrowed like by cast
+     */
+    private static MethodHandle narrow(MethodHandle setter, MethodType type) {
+        return MethodHandles.explicitCastArguments(setter, type);
+    }
+
+    private static RuntimeException rethrow(Throwable throwable) {
+        if (throwable instanceof RuntimeException)
+            return (RuntimeException) throwable;
+        if (throwable instanceof Error)
+            throw (Error) throwable;
+        return new IllegalStateException(throwable);
+    }
+
+    @Override
+    public Object get(Object model) {
+        try {
+            return (Object) getter.invokeExact(model);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public void set(Object model, Object value) {
+        if (setter == null)
+            throw new UnsupportedOperationException("Field is final");
+        try {
+            setter.invokeExact(model, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public int getInt(Object model) {
+        if (intGetter == null)
+            return FieldAccessor.super.getInt(model);
+        try {
+            return (int) intGetter.invokeExact(model);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public long getLong(Object model) {
+        if (longGetter == null)
+            return FieldAccessor.super.getLong(model);
+        try {
+            return (long) longGetter.invokeExact(model);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public double getDouble(Object model) {
+        if (doubleGetter == null)
+            return FieldAccessor.super.getDouble(model);
+        try {
+            return (double) doubleGetter.invokeExact(model);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public boolean getBoolean(Object model) {
+        if (booleanGetter == null)
+            return FieldAccessor.super.getBoolean(model);
+        try {
+            return (boolean) booleanGetter.invokeExact(model);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public void setInt(Object model, int value) {
+        if (intSetter == null) {
+            FieldAccessor.super.setInt(model, value);
+            return;
+        }
+        try {
+            intSetter.invokeExact(model, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public void setLong(Object model, long value) {
+        if (longSetter == null) {
+            FieldAccessor.super.setLong(model, value);
+            return;
+        }
+        try {
+            longSetter.invokeExact(model, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public void setDouble(Object model, double value) {
+        if (doubleSetter == null) {
+            FieldAccessor.super.setDouble(model, value);
+            return;
+        }
+        try {
+            doubleSetter.invokeExact(model, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public void setBoolean(Object model, boolean value) {
+        if (booleanSetter == null) {
+            FieldAccessor.super.setBoolean(model, value);
+            return;
+        }
+        try {
+            booleanSetter.invokeExact(model, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+}
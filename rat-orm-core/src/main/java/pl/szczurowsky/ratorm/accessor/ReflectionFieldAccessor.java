@@ -0,0 +1,34 @@
+package pl.szczurowsky.ratorm.accessor;
+
+import java.lang.reflect.Field;
+
+/**
+ * Accessor using java reflection, boxes every primitive
+ */
+public class ReflectionFieldAccessor implements FieldAccessor {
+
+    private final Field field;
+
+    public ReflectionFieldAccessor(Field field) {
+        field.setAccessible(true);
+        this.field = field;
+    }
+
+    @Override
+    public Object get(Object model) {
+        try {
+            return field.get(model);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void set(Object model, Object value) {
+        try {
+            field.set(model, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
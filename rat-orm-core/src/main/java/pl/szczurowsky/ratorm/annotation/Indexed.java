@@ -0,0 +1,39 @@
+package pl.szczurowsky.ratorm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Index of @ModelField created while initializing model.
+ * Fields with the same name form one compound index ordered by order
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Indexed {
+
+    /**
+     * Name of index, shared by fields of compound index. Empty for single field index
+     */
+    String name() default "";
+
+    /**
+     * Position of field in compound index
+     */
+    int order() default 0;
+
+    boolean descending() default false;
+
+    boolean unique() default false;
+
+    /**
+     * Skip documents without field
+     */
+    boolean sparse() default false;
+
+    /**
+     * Remove document after provided number of seconds since date stored in field, -1 to keep documents
+     */
+    long expireAfterSeconds() default -1;
+}
@@ -0,0 +1,15 @@
+package pl.szczurowsky.ratorm.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks constructor used to create model from database in one call.
+ * Parameters are matched to @ModelField fields by name when compiled with -parameters, otherwise by declaration order.
+ */
+@Target(ElementType.CONSTRUCTOR)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ModelConstructor {
+}
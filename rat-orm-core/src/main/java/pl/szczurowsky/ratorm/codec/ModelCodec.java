@@ -0,0 +1,32 @@
+package pl.szczurowsky.ratorm.codec;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+
+/**
+ * Codec of model generated at compile time by rat-orm-processor.
+ * Generated codecs are registered as services and discovered by BasicDatabase,
+ * models without generated codec fall back to runtime reflection.
+ * @param <T> Model class
+ */
+public interface ModelCodec<T extends BaseModel> {
+
+    /**
+     * Get class of model handled by codec
+     * @return Model class
+     */
+    Class<T> getModelClass();
+
+    /**
+     * Create new instance of model without reflection
+     * @return New instance or null when model doesn't have accessible no-args constructor
+     */
+    T newInstance();
+
+    /**
+     * Get accessor reading and writing field directly
+     * @param fieldName Name of java field
+     * @return Accessor or null when field isn't accessible from generated code
+     */
+    FieldAccessor getAccessor(String fieldName);
+}
@@ -0,0 +1,55 @@
+package pl.szczurowsky.ratorm.cursor;
+
+import pl.szczurowsky.ratorm.exception.CursorException;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator over fetched models, reading them from database in batches.
+ * Must be closed when not read until the end. Exceptions of database are wrapped in {@link CursorException}
+ * @param <T> Model class
+ */
+public interface ModelCursor<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * Release cursor of database
+     */
+    @Override
+    void close();
+
+    /**
+     * Sequential stream of remaining models, closing stream closes cursor
+     * @return Stream of models
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    /**
+     * Cursor over already fetched models
+     * @param <T> Model class
+     * @param iterator Iterator of models
+     * @return Cursor
+     */
+    static <T> ModelCursor<T> of(Iterator<T> iterator) {
+        return new ModelCursor<T>() {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+        };
+    }
+}
@@ -1,35 +1,90 @@
 package pl.szczurowsky.ratorm.database;
 
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.codec.ModelCodec;
 import pl.szczurowsky.ratorm.operation.OperationManager;
 import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.cursor.ModelCursor;
+import pl.szczurowsky.ratorm.enums.FieldKind;
 import pl.szczurowsky.ratorm.enums.FilterExpression;
+import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.pagination.Page;
+import pl.szczurowsky.ratorm.projection.Projection;
+import pl.szczurowsky.ratorm.query.CompiledQuery;
+import pl.szczurowsky.ratorm.query.FilterPredicates;
+import pl.szczurowsky.ratorm.query.Query;
 import pl.szczurowsky.ratorm.serializers.BigIntSerializer;
+import pl.szczurowsky.ratorm.serializers.DateSerializer;
 import pl.szczurowsky.ratorm.serializers.EnumSerializer;
 import pl.szczurowsky.ratorm.serializers.Serializer;
+import pl.szczurowsky.ratorm.serializers.SerializerRegistry;
 import pl.szczurowsky.ratorm.serializers.UuidSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+import pl.szczurowsky.ratorm.session.IdentityMap;
 import pl.szczurowsky.ratorm.serializers.basic.*;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public abstract class BasicDatabase implements Database {
 
     /**
      * Map of all models and their serializers
      */
-    protected final HashMap<Class<?>, Class<? extends Serializer>> serializers = new HashMap<>();
+    protected final SerializerRegistry serializers = new SerializerRegistry();
+
+    /**
+     * Map of all initialized models and their metadata
+     */
+    protected final Map<Class<? extends BaseModel>, ModelMetadata<?>> models = new ConcurrentHashMap<>();
+
+    /**
+     * Codecs generated at compile time, discovered through service loader
+     */
+    protected final Map<Class<?>, ModelCodec<?>> codecs = new HashMap<>();
+
+    /**
+     * Factory of accessors bound to model fields
+     */
+    protected FieldAccessorFactory fieldAccessorFactory = FieldAccessorFactory.METHOD_HANDLES;
 
     /**
      * Map of all models and their operations
      */
     protected final OperationManager operationManager = new OperationManager();
 
+    /**
+     * Minimal number of filtered objects evaluated in parallel
+     */
+    protected int parallelFilterThreshold = 10000;
+
+    /**
+     * Queries compiled for evaluation in memory, by identity of query
+     */
+    protected final Map<Query<?>, CompiledQuery<?>> compiledQueries = Collections.synchronizedMap(new WeakHashMap<>());
+
     /**
      * Is connected to database
      */
@@ -37,27 +92,45 @@ public abstract class BasicDatabase implements Database {
 
 
     /**
-     * Register default serializers
+     * Register default serializers and discover generated codecs
      */
     public BasicDatabase() {
-        this.serializers.put(String.class, StringSerializer.class);
-        this.serializers.put(Character.class, CharacterSerializer.class);
-        this.serializers.put(char.class, CharacterSerializer.class);
-        this.serializers.put(Integer.class, IntegerSerializer.class);
-        this.serializers.put(int.class, IntegerSerializer.class);
-        this.serializers.put(Long.class, LongSerializer.class);
-        this.serializers.put(long.class, LongSerializer.class);
-        this.serializers.put(BigInteger.class, BigIntSerializer.class);
-        this.serializers.put(Float.class, FloatSerializer.class);
-        this.serializers.put(float.class, FloatSerializer.class);
-        this.serializers.put(Boolean.class, BooleanSerializer.class);
-        this.serializers.put(boolean.class, BooleanSerializer.class);
-        this.serializers.put(Double.class, DoubleSerializer.class);
-        this.serializers.put(double.class, DoubleSerializer.class);
-        this.serializers.put(Short.class, ShortSerializer.class);
-        this.serializers.put(short.class, ShortSerializer.class);
-        this.serializers.put(UUID.class, UuidSerializer.class);
-        this.serializers.put(Enum.class, EnumSerializer.class);
+        CharacterSerializer characterSerializer = new CharacterSerializer();
+        IntegerSerializer integerSerializer = new IntegerSerializer();
+        LongSerializer longSerializer = new LongSerializer();
+        FloatSerializer floatSerializer = new FloatSerializer();
+        BooleanSerializer booleanSerializer = new BooleanSerializer();
+        DoubleSerializer doubleSerializer = new DoubleSerializer();
+        ShortSerializer shortSerializer = new ShortSerializer();
+        this.serializers.register(String.class, new StringSerializer());
+        this.serializers.register(Character.class, characterSerializer);
+        this.serializers.register(char.class, characterSerializer);
+        this.serializers.register(Integer.class, integerSerializer);
+        this.serializers.register(int.class, integerSerializer);
+        this.serializers.register(Long.class, longSerializer);
+        this.serializers.register(long.class, longSerializer);
+        this.serializers.register(BigInteger.class, new BigIntSerializer());
+        this.serializers.register(Float.class, floatSerializer);
+        this.serializers.register(float.class, floatSerializer);
+        this.serializers.register(Boolean.class, booleanSerializer);
+        this.serializers.register(boolean.class, booleanSerializer);
+        this.serializers.register(Double.class, doubleSerializer);
+        this.serializers.register(double.class, doubleSerializer);
+        this.serializers.register(Short.class, shortSerializer);
+        this.serializers.register(short.class, shortSerializer);
+        this.serializers.register(UUID.class, new UuidSerializer());
+        this.serializers.register(Date.class, new DateSerializer());
+        this.serializers.register(Enum.class, new EnumSerializer());
+        for (ModelCodec<?> codec : ServiceLoader.load(ModelCodec.class))
+            this.codecs.put(codec.getModelClass(), codec);
+    }
+
+    /**
+     * Get registry of serializers shared by all models
+     * @return Serializer registry
+     */
+    public SerializerRegistry getSerializers() {
+        return serializers;
     }
 
     @Override
@@ -65,84 +138,337 @@ public abstract class BasicDatabase implements Database {
         return operationManager;
     }
 
+    /**
+     * Resolve metadata of model and store it in registry
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @return Metadata of model
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws MoreThanOnePrimaryKeyException Exception when model have more than one field set as primary key
+     * @throws NoPrimaryKeyException Exception when model don't have field as primary key
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws NoModelConstructorException Model doesn't have constructor usable to create it
+     */
+    protected <T extends BaseModel> ModelMetadata<T> registerModel(Class<T> modelClass) throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException, NoSerializerFoundException, NoModelConstructorException {
+        ModelMetadata<T> metadata = ModelMetadata.of(modelClass, this.serializers, this.fieldAccessorFactory, (ModelCodec<T>) this.codecs.get(modelClass));
+        this.models.put(modelClass, metadata);
+        return metadata;
+    }
+
+    @Override
+    public <T extends BaseModel> ModelMetadata<T> getModelMetadata(Class<T> modelClass) throws ModelNotInitializedException {
+        ModelMetadata<T> metadata = (ModelMetadata<T>) this.models.get(modelClass);
+        if (metadata == null)
+            throw new ModelNotInitializedException();
+        return metadata;
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetchAll(Class<T> modelClass, IdentityMap identityMap) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.putIfAbsent(this.fetchAll(modelClass), modelClass, identityMap);
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value, IdentityMap identityMap) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.putIfAbsent(this.fetchMatching(modelClass, key, value), modelClass, identityMap);
+    }
+
+    /**
+     * Fallback for databases without projections, reads every field
+     */
+    @Override
+    public <T extends BaseModel> List<T> fetchAll(Class<T> modelClass, Projection projection) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.fetchAll(modelClass);
+    }
+
+    /**
+     * Fallback for databases without projections, reads every field
+     */
+    @Override
+    public <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value, Projection projection) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.fetchMatching(modelClass, key, value);
+    }
+
+    /**
+     * Fallback for databases without counting, reads every object
+     */
+    @Override
+    public <T extends BaseModel> long count(Class<T> modelClass) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.fetchAll(modelClass).size();
+    }
+
+    /**
+     * Fallback for databases without counting, reads every matching object
+     */
+    @Override
+    public <T extends BaseModel> long count(Class<T> modelClass, String key, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.fetchMatching(modelClass, key, value).size();
+    }
+
+    /**
+     * Fallback for databases without counting, reads every matching object
+     */
+    @Override
+    public <T extends BaseModel> long count(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.fetch(query).size();
+    }
+
+    /**
+     * Fallback for databases without counting, reads every matching object
+     */
+    @Override
+    public <T extends BaseModel> boolean exists(Class<T> modelClass, String key, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return !this.fetchMatching(modelClass, key, value).isEmpty();
+    }
+
+    /**
+     * Fallback for databases without counting, reads every matching object
+     */
+    @Override
+    public <T extends BaseModel> boolean exists(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return !this.fetch(query).isEmpty();
+    }
+
+    /**
+     * Fallback for databases without distinct, reads every object
+     */
+    @Override
+    public <T extends BaseModel> List<Object> distinct(Class<T> modelClass, String field) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        ModelFieldMetadata fieldMetadata = this.distinctField(this.getModelMetadata(modelClass), field);
+        Set<Object> values = new LinkedHashSet<>();
+        for (T model : this.fetchAll(modelClass))
+            values.add(fieldMetadata.getAccessor().get(model));
+        return new ArrayList<>(values);
+    }
+
+    /**
+     * Field of which distinct values can be read
+     * @param metadata Metadata of model
+     * @param field Name of field or column
+     * @return Metadata of field
+     * @throws IllegalArgumentException Model doesn't have such field or field holds collection, map or foreign key
+     */
+    protected ModelFieldMetadata distinctField(ModelMetadata<?> metadata, String field) {
+        ModelFieldMetadata fieldMetadata = metadata.getField(field);
+        if (fieldMetadata == null)
+            throw new IllegalArgumentException("Model " + metadata.getModelClass().getName() + " doesn't have field " + field);
+        if (fieldMetadata.getKind() != FieldKind.VALUE)
+            throw new IllegalArgumentException("Distinct values of field " + field + " holding " + fieldMetadata.getKind() + " aren't supported");
+        return fieldMetadata;
+    }
+
+    /**
+     * Fallback for databases without pagination, reads every object and sorts them by primary key
+     */
+    @Override
+    public <T extends BaseModel> Page<T> fetchPage(Class<T> modelClass, int offset, int limit) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        checkPage(offset, limit);
+        List<T> models = this.sortedByPrimaryKey(modelClass, null);
+        return this.page(modelClass, models.subList(Math.min(offset, models.size()), models.size()), limit);
+    }
+
+    /**
+     * Fallback for databases without pagination, reads every object and sorts them by primary key
+     */
+    @Override
+    public <T extends BaseModel> Page<T> fetchPageAfter(Class<T> modelClass, Object lastKey, int limit) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        checkPage(0, limit);
+        return this.page(modelClass, this.sortedByPrimaryKey(modelClass, lastKey), limit);
+    }
+
+    /**
+     * Fetch all objects with primary key greater than provided key, ordered by primary key
+     */
+    private <T extends BaseModel> List<T> sortedByPrimaryKey(Class<T> modelClass, Object after) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        ModelFieldMetadata primaryKey = this.getModelMetadata(modelClass).getPrimaryKey();
+        Comparator<Object> order = Comparator.nullsFirst((a, b) -> ((Comparable<Object>) a).compareTo(b));
+        return this.fetchAll(modelClass).stream()
+                .filter(model -> after == null || order.compare(primaryKey.getAccessor().get(model), after) > 0)
+                .sorted((a, b) -> order.compare(primaryKey.getAccessor().get(a), primaryKey.getAccessor().get(b)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Validate arguments of page
+     * @param offset Number of skipped objects
+     * @param limit Maximum number of objects on page
+     * @throws IllegalArgumentException Offset is negative or limit isn't positive
+     */
+    protected static void checkPage(int offset, int limit) {
+        if (offset < 0)
+            throw new IllegalArgumentException("Offset can't be negative, got " + offset);
+        if (limit <= 0)
+            throw new IllegalArgumentException("Limit must be positive, got " + limit);
+    }
+
+    /**
+     * Number of objects read for page, object after limit tells whether there is next page
+     * @param limit Maximum number of objects on page
+     * @return Number of objects to read
+     */
+    protected static int pageReadLimit(int limit) {
+        return limit == Integer.MAX_VALUE ? limit : limit + 1;
+    }
+
+    /**
+     * Create page of first models
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param models Models ordered by primary key, one more than limit when there is next page
+     * @param limit Maximum number of objects on page
+     * @return Page
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    protected <T extends BaseModel> Page<T> page(Class<T> modelClass, List<T> models, int limit) throws ModelNotInitializedException {
+        List<T> items = new ArrayList<>(models.subList(0, Math.min(limit, models.size())));
+        Object lastKey = items.isEmpty() ? null : this.getModelMetadata(modelClass).getPrimaryKey().getAccessor().get(items.get(items.size() - 1));
+        return new Page<>(items, lastKey, models.size() > limit);
+    }
+
+    /**
+     * Fallback for databases without cursors, reads every object at once
+     */
+    @Override
+    public <T extends BaseModel> ModelCursor<T> iterateAll(Class<T> modelClass, int batchSize) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException {
+        try {
+            return ModelCursor.of(this.fetchAll(modelClass).iterator());
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException e) {
+            throw new CursorException(e);
+        }
+    }
+
+    /**
+     * Fallback for databases without cursors, reads every object at once
+     */
+    @Override
+    public <T extends BaseModel> ModelCursor<T> iterateMatching(Class<T> modelClass, String key, Object value, int batchSize) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException {
+        try {
+            return ModelCursor.of(this.fetchMatching(modelClass, key, value).iterator());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new CursorException(e);
+        }
+    }
+
+    /**
+     * Replace fetched models with instances already present in identity map and register the rest
+     * @param <T> Model class
+     * @param models Fetched models
+     * @param modelClass Model class
+     * @param identityMap Identity map
+     * @return Models kept in identity map
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    protected <T extends BaseModel> List<T> putIfAbsent(List<T> models, Class<T> modelClass, IdentityMap identityMap) throws ModelNotInitializedException {
+        ModelFieldMetadata primaryKey = this.getModelMetadata(modelClass).getPrimaryKey();
+        List<T> kept = new ArrayList<>(models.size());
+        for (T model : models)
+            kept.add(identityMap.putIfAbsent(modelClass, primaryKey.getAccessor().get(model), model));
+        return kept;
+    }
+
+    /**
+     * Replace factory of field accessors, affects models initialized after the call
+     * @param fieldAccessorFactory Factory of field accessors
+     */
+    public void setFieldAccessorFactory(FieldAccessorFactory fieldAccessorFactory) {
+        this.fieldAccessorFactory = fieldAccessorFactory;
+    }
+
     @Override
     public void registerSerializer(Class<?> serializedObjectClass, Class<? extends Serializer> serializerClass) {
-        this.serializers.put(serializedObjectClass, serializerClass);
+        this.serializers.register(serializedObjectClass, serializerClass);
+    }
+
+    @Override
+    public void registerSerializer(Class<?> serializedObjectClass, Serializer<?> serializer) {
+        this.serializers.register(serializedObjectClass, serializer);
+    }
+
+    @Override
+    public void registerStreamSerializer(Class<?> serializedObjectClass, StreamSerializer<?> serializer) {
+        this.serializers.registerStream(serializedObjectClass, serializer);
+    }
+
+    /**
+     * Fallback for databases without queries, reads every object and filters them in memory
+     */
+    @Override
+    public <T extends BaseModel> List<T> fetch(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.filter(query, this.fetchAll(query.getModelClass()).stream());
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> filter(Query<T> query, Stream<T> objects) throws ModelNotInitializedException {
+        return this.compile(query).apply(this.parallelIfLarge(objects));
+    }
+
+    /**
+     * Compile query for evaluation in memory, compiled query is reused while query is referenced
+     * @param <T> Model class
+     * @param query Query
+     * @return Compiled query
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    protected <T extends BaseModel> CompiledQuery<T> compile(Query<T> query) throws ModelNotInitializedException {
+        CompiledQuery<T> compiled = (CompiledQuery<T>) this.compiledQueries.get(query);
+        if (compiled == null) {
+            compiled = CompiledQuery.compile(query, this.getModelMetadata(query.getModelClass()));
+            this.compiledQueries.put(query, compiled);
+        }
+        return compiled;
     }
 
+    /**
+     * Expression is compiled once into predicate specialised for type of field
+     */
     @Override
     public <T extends BaseModel> List<T> filter(Class<T> modelClass, String field, FilterExpression expression, Object value, Stream<T> objects) {
-        switch (expression) {
-            case GREATER_THAN:
-                return objects.filter(o -> {
-                    try {
-                        Field _field = o.getClass().getDeclaredField(field);
-                        _field.setAccessible(true);
-                        return Long.parseLong(_field.get(o).toString()) > Long.parseLong(value.toString());
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    return false;
-                }).map(k -> (T) k).collect(Collectors.toList());
-            case LESS_THAN:
-                return objects.filter(o -> {
-                    try {
-                        Field _field = o.getClass().getDeclaredField(field);
-                        _field.setAccessible(true);
-                        return Long.parseLong(_field.get(o).toString()) < Long.parseLong(value.toString());
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    return false;
-                }).map(k -> (T) k).collect(Collectors.toList());
-            case EQUALS:
-                return objects.filter(o -> {
-                    try {
-                        Field _field = o.getClass().getDeclaredField(field);
-                        _field.setAccessible(true);
-                        return _field.get(o).equals(value);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    return false;
-                }).map(k -> (T) k).collect(Collectors.toList());
-            case NOT_EQUALS:
-                return objects.filter(o -> {
-                    try {
-                        Field _field = o.getClass().getDeclaredField(field);
-                        _field.setAccessible(true);
-                        return !_field.get(o).equals(value);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    return false;
-                }).map(k -> (T) k).collect(Collectors.toList());
-            case GREATER_THAN_EQUALS:
-                return objects.filter(o -> {
-                    try {
-                        Field _field = o.getClass().getDeclaredField(field);
-                        _field.setAccessible(true);
-                        return Long.parseLong(_field.get(o).toString()) >= Long.parseLong(value.toString());
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    return false;
-                }).map(k -> (T) k).collect(Collectors.toList());
-            case LESS_THAN_EQUALS:
-                return objects.filter(o -> {
-                    try {
-                        Field _field = o.getClass().getDeclaredField(field);
-                        _field.setAccessible(true);
-                        return Long.parseLong(_field.get(o).toString()) <= Long.parseLong(value.toString());
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                    return false;
-                }).map(k -> (T) k).collect(Collectors.toList());
-            default:
+        ModelMetadata<?> metadata = this.models.get(modelClass);
+        ModelFieldMetadata fieldMetadata = metadata != null ? metadata.getField(field) : null;
+        Predicate<T> predicate;
+        if (fieldMetadata != null)
+            predicate = FilterPredicates.compile(fieldMetadata.getAccessor(), fieldMetadata.getType(), expression, value);
+        else {
+            // Fields which aren't @ModelField and models which aren't initialized
+            Field declaredField = findField(modelClass, field);
+            if (declaredField == null)
                 return new LinkedList<>();
+            declaredField.setAccessible(true);
+            predicate = FilterPredicates.compile(this.fieldAccessorFactory.create(declaredField), declaredField.getType(), expression, value);
         }
+        return this.parallelIfLarge(objects).filter(predicate).collect(Collectors.toList());
     }
 
+    private static Field findField(Class<?> type, String name) {
+        for (; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(name);
+            } catch (NoSuchFieldException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Switch stream to parallel when it's known to be large
+     * @param <T> Model class
+     * @param objects Stream of models
+     * @return Stream of the same models
+     */
+    protected <T> Stream<T> parallelIfLarge(Stream<T> objects) {
+        if (objects.isParallel() || this.parallelFilterThreshold <= 0)
+            return objects;
+        Spliterator<T> spliterator = objects.spliterator();
+        long size = spliterator.getExactSizeIfKnown();
+        return StreamSupport.stream(spliterator, size >= this.parallelFilterThreshold).onClose(objects::close);
+    }
+
+    /**
+     * Set minimal number of filtered objects evaluated in parallel, only streams of known size are evaluated in parallel
+     * @param parallelFilterThreshold Number of objects, 0 to disable parallel evaluation
+     */
+    public void setParallelFilterThreshold(int parallelFilterThreshold) {
+        this.parallelFilterThreshold = parallelFilterThreshold;
+    }
 
 }
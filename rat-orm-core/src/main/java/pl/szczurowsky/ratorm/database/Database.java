@@ -2,9 +2,16 @@ package pl.szczurowsky.ratorm.database;
 
 import pl.szczurowsky.ratorm.operation.OperationManager;
 import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.cursor.ModelCursor;
 import pl.szczurowsky.ratorm.enums.FilterExpression;
 import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.pagination.Page;
+import pl.szczurowsky.ratorm.projection.Projection;
+import pl.szczurowsky.ratorm.query.Query;
 import pl.szczurowsky.ratorm.serializers.Serializer;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+import pl.szczurowsky.ratorm.session.IdentityMap;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
@@ -45,14 +52,31 @@ public interface Database {
      */
     void registerSerializer(Class<?> serializedObjectClass, Class<? extends Serializer> serializerClass);
 
+    /**
+     * Register new object serializer instance, shared between threads
+     * @param serializedObjectClass Class of object which is going to be used with provided serializer
+     * @param serializer Thread-safe instance of serializer
+     */
+    void registerSerializer(Class<?> serializedObjectClass, Serializer<?> serializer);
+
+    /**
+     * Register streaming serializer instance, shared between threads.
+     * It's used instead of string serializer of the same class by backends supporting streaming
+     * @param serializedObjectClass Class of object which is going to be used with provided serializer
+     * @param serializer Thread-safe instance of serializer
+     */
+    void registerStreamSerializer(Class<?> serializedObjectClass, StreamSerializer<?> serializer);
+
     /**
      * Initialize table in database. If table not existing in database than creating it. If exists than load
      * @param modelClasses One or multiple class of models
      * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
      * @throws MoreThanOnePrimaryKeyException Exception when model have more than one field set as primary key
      * @throws NoPrimaryKeyException Exception when model don't have field as primary key
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws NoModelConstructorException Model doesn't have constructor usable to create it
      */
-    void initModel(Collection<Class<? extends BaseModel>> modelClasses) throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException;
+    void initModel(Collection<Class<? extends BaseModel>> modelClasses) throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException, NoSerializerFoundException, NoModelConstructorException;
 
     /**
      * Fetch all objects which matches model class
@@ -86,6 +110,151 @@ public interface Database {
      */
     <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
 
+    /**
+     * Fetch all objects which matches model class, reusing and registering instances in identity map
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param identityMap Identity map, e.g. of session
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    <T extends BaseModel> List<T> fetchAll(Class<T> modelClass, IdentityMap identityMap) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Fetch all objects which match provided conditions, reusing and registering instances in identity map
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param key Object key in database (field name)
+     * @param value Not serialized value of field
+     * @param identityMap Identity map, e.g. of session
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value, IdentityMap identityMap) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Fetch only projected fields of all objects which matches model class, other fields are left at defaults
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param projection Fields to read
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    <T extends BaseModel> List<T> fetchAll(Class<T> modelClass, Projection projection) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Fetch only projected fields of all objects which match provided conditions, other fields are left at defaults
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param key Object key in database (field name)
+     * @param value Not serialized value of field
+     * @param projection Fields to read
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value, Projection projection) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Fetch page of objects ordered by primary key, skipping provided number of objects.
+     * Cost grows with offset, prefer {@link #fetchPageAfter(Class, Object, int)} for deep pages
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param offset Number of skipped objects, not negative
+     * @param limit Maximum number of objects on page, positive
+     * @throws IllegalArgumentException Offset is negative or limit isn't positive
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Page of objects
+     */
+    <T extends BaseModel> Page<T> fetchPage(Class<T> modelClass, int offset, int limit) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Fetch page of objects ordered by primary key, starting after provided primary key
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param lastKey Primary key of last object of previous page ({@link Page#getLastKey()}), null for first page
+     * @param limit Maximum number of objects on page, positive
+     * @throws IllegalArgumentException Limit isn't positive
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Page of objects
+     */
+    <T extends BaseModel> Page<T> fetchPageAfter(Class<T> modelClass, Object lastKey, int limit) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Iterate all objects which match model class, reading them lazily in batches.
+     * Memory used by cursor doesn't depend on size of table
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param batchSize Number of objects read from database at once
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @return Cursor which has to be closed
+     */
+    <T extends BaseModel> ModelCursor<T> iterateAll(Class<T> modelClass, int batchSize) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException;
+
+    /**
+     * Iterate all objects which match provided conditions, reading them lazily in batches.
+     * Memory used by cursor doesn't depend on size of table
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param key Object key in database (field name)
+     * @param value Not serialized value of field
+     * @param batchSize Number of objects read from database at once
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @return Cursor which has to be closed
+     */
+    <T extends BaseModel> ModelCursor<T> iterateMatching(Class<T> modelClass, String key, Object value, int batchSize) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException;
+
+    /**
+     * Get metadata of initialized model
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @return Metadata of model
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    <T extends BaseModel> ModelMetadata<T> getModelMetadata(Class<T> modelClass) throws ModelNotInitializedException;
+
     /**
      * Save Many object
      * @param <T> Model class
@@ -96,8 +265,9 @@ public interface Database {
      * @throws IllegalAccessException Java security exception
      * @throws InvocationTargetException Java exception when wasn't able to invoke method
      * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
      */
-    <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException;
+    <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException, ModelNotInitializedException;
 
     /**
      * Save Many object
@@ -110,8 +280,9 @@ public interface Database {
      * @throws IllegalAccessException Java security exception
      * @throws InvocationTargetException Java exception when wasn't able to invoke method
      * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
      */
-    <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException;
+    <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException, ModelNotInitializedException;
 
 
     /**
@@ -124,8 +295,9 @@ public interface Database {
      * @throws IllegalAccessException Java security exception
      * @throws InvocationTargetException Java exception when wasn't able to invoke method
      * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
      */
-    <T extends BaseModel> void save(T object, Class<T> modelClass) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException;
+    <T extends BaseModel> void save(T object, Class<T> modelClass) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException;
 
     /**
      * Save object
@@ -138,8 +310,9 @@ public interface Database {
      * @throws IllegalAccessException Java security exception
      * @throws InvocationTargetException Java exception when wasn't able to invoke method
      * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
      */
-    <T extends BaseModel> void save(T object, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException;
+    <T extends BaseModel> void save(T object, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException;
 
     /**
      * Returns all object which match
@@ -153,6 +326,127 @@ public interface Database {
      */
     <T extends BaseModel> List<T> filter(Class<T> modelClass, String field, FilterExpression expression, Object value, Stream<T> objects);
 
+    /**
+     * Fetch all objects matching query, evaluated by database when it's supported
+     * @param <T> Model class
+     * @param query Query
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    <T extends BaseModel> List<T> fetch(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Returns all object which match query, sorted and limited as query requires
+     * @param <T> Model class
+     * @param query Query
+     * @param objects provided stream of objects
+     * @return Array of objects which matched query
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    <T extends BaseModel> List<T> filter(Query<T> query, Stream<T> objects) throws ModelNotInitializedException;
+
+    /**
+     * Count all objects without reading them when it's supported
+     * @param <T> Model class
+     * @param modelClass class of object model
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Number of objects
+     */
+    <T extends BaseModel> long count(Class<T> modelClass) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Count objects with field matching value without reading them when it's supported
+     * @param <T> Model class
+     * @param modelClass class of object model
+     * @param key name of field
+     * @param value value of field
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Number of matching objects
+     */
+    <T extends BaseModel> long count(Class<T> modelClass, String key, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Count objects matching query, at most limit of query, without reading them when it's supported
+     * @param <T> Model class
+     * @param query Query
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Number of matching objects
+     */
+    <T extends BaseModel> long count(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Check whether any object has field matching value, without reading it when it's supported
+     * @param <T> Model class
+     * @param modelClass class of object model
+     * @param key name of field
+     * @param value value of field
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Whether matching object exists
+     */
+    <T extends BaseModel> boolean exists(Class<T> modelClass, String key, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Check whether any object matches query, without reading it when it's supported
+     * @param <T> Model class
+     * @param query Query
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Whether matching object exists
+     */
+    <T extends BaseModel> boolean exists(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
+    /**
+     * Distinct values of field, without reading whole objects when it's supported
+     * @param <T> Model class
+     * @param modelClass class of object model
+     * @param field name of field holding single value
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return Distinct values of field
+     * @throws IllegalArgumentException Model doesn't have such field or field holds collection, map or foreign key
+     */
+    <T extends BaseModel> List<Object> distinct(Class<T> modelClass, String field) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException;
+
     /**
      * Deletes object in database which matches provided object
      * @param <T> Model class
@@ -163,8 +457,9 @@ public interface Database {
      * @throws InstantiationException Java exception when model class wasn't able to create own instance
      * @throws IllegalAccessException Java security exception
      * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws ModelNotInitializedException Model wasn't initialized
      */
-    <T extends BaseModel> void delete(T object, Class<T> modelClass) throws NotConnectedToDatabaseException, NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException;
+    <T extends BaseModel> void delete(T object, Class<T> modelClass) throws NotConnectedToDatabaseException, NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, ModelNotInitializedException;
 
     /**
      * Checks is connection to database valid
@@ -0,0 +1,11 @@
+package pl.szczurowsky.ratorm.enums;
+
+/**
+ * How value of model field is (de)serialized
+ */
+public enum FieldKind {
+    VALUE,
+    COLLECTION,
+    MAP,
+    FOREIGN_KEY
+}
@@ -0,0 +1,14 @@
+package pl.szczurowsky.ratorm.enums;
+
+public enum QueryOperator {
+    EQUALS,
+    NOT_EQUALS,
+    GREATER_THAN,
+    GREATER_THAN_EQUALS,
+    LESS_THAN,
+    LESS_THAN_EQUALS,
+    IN,
+    NOT_IN,
+    AND,
+    OR
+}
@@ -0,0 +1,20 @@
+package pl.szczurowsky.ratorm.enums;
+
+/**
+ * Type of value at current position of value reader
+ */
+public enum ValueType {
+    NULL,
+    STRING,
+    INT,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    BINARY,
+    ARRAY,
+    DOCUMENT,
+    /**
+     * Value without counterpart in RatORM (e.g. backend specific type), can be only skipped
+     */
+    OTHER
+}
@@ -0,0 +1,10 @@
+package pl.szczurowsky.ratorm.exception;
+
+/**
+ * Checked exception thrown while reading next model from cursor
+ */
+public class CursorException extends RuntimeException {
+    public CursorException(Exception e) {
+        super("Cannot read next model from cursor", e);
+    }
+}
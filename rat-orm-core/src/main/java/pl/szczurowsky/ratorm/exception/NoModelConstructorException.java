@@ -0,0 +1,7 @@
+package pl.szczurowsky.ratorm.exception;
+
+public class NoModelConstructorException extends Exception {
+    public NoModelConstructorException(String message) {
+        super(message);
+    }
+}
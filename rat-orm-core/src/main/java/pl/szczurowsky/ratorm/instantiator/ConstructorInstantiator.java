@@ -0,0 +1,89 @@
+package pl.szczurowsky.ratorm.instantiator;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates model in one call of constructor taking every @ModelField, used by immutable models.
+ * Missing values are passed as null or zero for primitive parameters.
+ * @param <T> Model class
+ */
+public class ConstructorInstantiator<T extends BaseModel> implements ModelInstantiator<T> {
+
+    private final MethodHandle constructor;
+
+    /**
+     * Index of field passed as parameter
+     */
+    private final int[] parameterFields;
+
+    /**
+     * Values used when field is missing in database
+     */
+    private final Object[] defaults;
+
+    /**
+     * @param constructor Constructor of model
+     * @param parameterFields Index of model field passed as every parameter
+     */
+    public ConstructorInstantiator(Constructor<T> constructor, int[] parameterFields) {
+        this.parameterFields = parameterFields.clone();
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        this.defaults = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++)
+            this.defaults[i] = defaultValue(parameterTypes[i]);
+        constructor.setAccessible(true);
+        try {
+            this.constructor = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access constructor " + constructor, e);
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive())
+            return null;
+        if (type == boolean.class)
+            return false;
+        if (type == char.class)
+            return '\0';
+        if (type == long.class)
+            return 0L;
+        if (type == float.class)
+            return 0f;
+        if (type == double.class)
+            return 0d;
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == short.class)
+            return (short) 0;
+        return 0;
+    }
+
+    @Override
+    public T newInstance(Object[] values) throws InstantiationException {
+        Object[] arguments = new Object[parameterFields.length];
+        for (int i = 0; i < arguments.length; i++) {
+            Object value = values[parameterFields[i]];
+            arguments[i] = value != null ? value : defaults[i];
+        }
+        try {
+            return (T) (Object) constructor.invokeExact(arguments);
+        } catch (Throwable throwable) {
+            InstantiationException exception = new InstantiationException("Cannot create instance of model");
+            exception.initCause(throwable);
+            throw exception;
+        }
+    }
+
+    @Override
+    public boolean isConstructorBound() {
+        return true;
+    }
+}
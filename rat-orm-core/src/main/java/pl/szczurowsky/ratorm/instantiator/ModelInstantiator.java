@@ -0,0 +1,24 @@
+package pl.szczurowsky.ratorm.instantiator;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+
+/**
+ * Strategy creating model from deserialized values, resolved once per model class
+ * @param <T> Model class
+ */
+public interface ModelInstantiator<T extends BaseModel> {
+
+    /**
+     * Create model populated with values
+     * @param values Deserialized values indexed like model fields, null when value is missing in database
+     * @return New instance of model
+     * @throws InstantiationException Model wasn't able to create own instance
+     */
+    T newInstance(Object[] values) throws InstantiationException;
+
+    /**
+     * Are values passed to constructor instead of being written to fields
+     * @return true if model is created in one constructor call
+     */
+    boolean isConstructorBound();
+}
@@ -0,0 +1,67 @@
+package pl.szczurowsky.ratorm.instantiator;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.codec.ModelCodec;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+/**
+ * Creates model with no-args constructor and writes every received value to its field.
+ * Missing values keep defaults set by constructor.
+ * @param <T> Model class
+ */
+public class NoArgsInstantiator<T extends BaseModel> implements ModelInstantiator<T> {
+
+    private final ModelCodec<T> codec;
+    private final MethodHandle constructor;
+    private final ModelFieldMetadata[] fields;
+
+    /**
+     * @param constructor No-args constructor of model
+     * @param codec Generated codec used instead of constructor handle, can be null
+     * @param fields Fields of model
+     */
+    public NoArgsInstantiator(Constructor<T> constructor, ModelCodec<T> codec, List<ModelFieldMetadata> fields) {
+        this.codec = codec;
+        this.fields = fields.toArray(new ModelFieldMetadata[0]);
+        constructor.setAccessible(true);
+        try {
+            this.constructor = MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access constructor " + constructor, e);
+        }
+    }
+
+    @Override
+    public T newInstance(Object[] values) throws InstantiationException {
+        T instance = codec != null ? codec.newInstance() : null;
+        if (instance == null)
+            instance = construct();
+        for (ModelFieldMetadata field : fields) {
+            Object value = values[field.getIndex()];
+            if (value != null)
+                field.getAccessor().set(instance, value);
+        }
+        return instance;
+    }
+
+    private T construct() throws InstantiationException {
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (Throwable throwable) {
+            InstantiationException exception = new InstantiationException("Cannot create instance of model");
+            exception.initCause(throwable);
+            throw exception;
+        }
+    }
+
+    @Override
+    public boolean isConstructorBound() {
+        return false;
+    }
+}
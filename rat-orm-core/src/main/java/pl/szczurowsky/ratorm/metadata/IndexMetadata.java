@@ -0,0 +1,67 @@
+package pl.szczurowsky.ratorm.metadata;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of index declared with @Indexed
+ */
+public final class IndexMetadata {
+
+    /**
+     * Name of index without prefix of database
+     */
+    private final String name;
+
+    /**
+     * Indexed fields in order of index
+     */
+    private final List<ModelFieldMetadata> fields;
+
+    /**
+     * Whether field at the same position is indexed descending
+     */
+    private final List<Boolean> descending;
+
+    private final boolean unique;
+
+    private final boolean sparse;
+
+    /**
+     * Seconds after which documents expire or -1 when they don't
+     */
+    private final long expireAfterSeconds;
+
+    public IndexMetadata(String name, List<ModelFieldMetadata> fields, List<Boolean> descending, boolean unique, boolean sparse, long expireAfterSeconds) {
+        this.name = name;
+        this.fields = Collections.unmodifiableList(fields);
+        this.descending = Collections.unmodifiableList(descending);
+        this.unique = unique;
+        this.sparse = sparse;
+        this.expireAfterSeconds = expireAfterSeconds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<ModelFieldMetadata> getFields() {
+        return fields;
+    }
+
+    public boolean isDescending(int position) {
+        return descending.get(position);
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    public long getExpireAfterSeconds() {
+        return expireAfterSeconds;
+    }
+}
@@ -0,0 +1,173 @@
+package pl.szczurowsky.ratorm.metadata;
+
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+import pl.szczurowsky.ratorm.enums.FieldKind;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+
+import java.lang.reflect.Field;
+
+/**
+ * Immutable description of one @ModelField resolved while initializing model
+ */
+public final class ModelFieldMetadata {
+
+    /**
+     * Position of field in model
+     */
+    private final int index;
+
+    /**
+     * Reflected field, already accessible
+     */
+    private final Field field;
+
+    /**
+     * Accessor bound to field
+     */
+    private final FieldAccessor accessor;
+
+    /**
+     * Name of column in database
+     */
+    private final String columnName;
+
+    /**
+     * How value is (de)serialized
+     */
+    private final FieldKind kind;
+
+    /**
+     * Is field primary key
+     */
+    private final boolean primaryKey;
+
+    /**
+     * Shared instance of serializer used by field, null when value has only streaming serializer
+     */
+    private final Serializer<?> serializer;
+
+    /**
+     * Streaming serializer of value, null for collections, maps and foreign keys
+     */
+    private final StreamSerializer<?> streamSerializer;
+
+    /**
+     * Type of collection elements or map values, null when unknown or without serializer
+     */
+    private final Class<?> elementType;
+
+    /**
+     * Type of map keys, null when unknown or without serializer
+     */
+    private final Class<?> keyType;
+
+    /**
+     * Referenced model class of foreign key, null for other fields
+     */
+    private final Class<?> referencedType;
+
+    ModelFieldMetadata(int index, Field field, FieldAccessor accessor, String columnName, FieldKind kind, boolean primaryKey, Serializer<?> serializer, StreamSerializer<?> streamSerializer, Class<?> elementType, Class<?> keyType, Class<?> referencedType) {
+        this.index = index;
+        this.field = field;
+        this.accessor = accessor;
+        this.columnName = columnName;
+        this.kind = kind;
+        this.primaryKey = primaryKey;
+        this.serializer = serializer;
+        this.streamSerializer = streamSerializer;
+        this.elementType = elementType;
+        this.keyType = keyType;
+        this.referencedType = referencedType;
+    }
+
+    /**
+     * Copy of field stored in other column
+     * @param columnName Name of column in database
+     * @return Metadata of field
+     */
+    ModelFieldMetadata withColumnName(String columnName) {
+        return new ModelFieldMetadata(index, field, accessor, columnName, kind, primaryKey, serializer, streamSerializer, elementType, keyType, referencedType);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public FieldAccessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * Name of field in java class
+     * @return field name
+     */
+    public String getName() {
+        return field.getName();
+    }
+
+    public Class<?> getType() {
+        return field.getType();
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public FieldKind getKind() {
+        return kind;
+    }
+
+    public boolean isPrimaryKey() {
+        return primaryKey;
+    }
+
+    public boolean isForeignKey() {
+        return kind == FieldKind.FOREIGN_KEY;
+    }
+
+    /**
+     * Is foreign key loaded on first access, see {@link ForeignKeyReference}
+     * @return true for foreign keys of type ForeignKeyReference
+     */
+    public boolean isLazy() {
+        return kind == FieldKind.FOREIGN_KEY && field.getType() == ForeignKeyReference.class;
+    }
+
+    /**
+     * Model class referenced by foreign key, type argument of ForeignKeyReference for lazy foreign keys
+     * @return Referenced model class or null when field isn't foreign key
+     */
+    public Class<?> getReferencedType() {
+        return referencedType;
+    }
+
+    public Serializer<?> getSerializer() {
+        return serializer;
+    }
+
+    public StreamSerializer<?> getStreamSerializer() {
+        return streamSerializer;
+    }
+
+    /**
+     * Type of collection elements or map values resolved from generic signature
+     * @return Element type or null when it can't be resolved
+     */
+    public Class<?> getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Type of map keys resolved from generic signature
+     * @return Key type or null when it can't be resolved
+     */
+    public Class<?> getKeyType() {
+        return keyType;
+    }
+}
@@ -0,0 +1,354 @@
+package pl.szczurowsky.ratorm.metadata;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Indexed;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelConstructor;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.codec.ModelCodec;
+import pl.szczurowsky.ratorm.enums.FieldKind;
+import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.instantiator.ConstructorInstantiator;
+import pl.szczurowsky.ratorm.instantiator.ModelInstantiator;
+import pl.szczurowsky.ratorm.instantiator.NoArgsInstantiator;
+import pl.szczurowsky.ratorm.serializers.CollectionSerializer;
+import pl.szczurowsky.ratorm.serializers.ForeignKeySerializer;
+import pl.szczurowsky.ratorm.serializers.MapSerializer;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+import pl.szczurowsky.ratorm.serializers.SerializerRegistry;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Immutable plan of model built once while initializing model.
+ * Contains everything needed to (de)serialize model without looking at annotations again.
+ * @param <T> Model class
+ */
+public final class ModelMetadata<T extends BaseModel> {
+
+    private static final MapSerializer MAP_SERIALIZER = new MapSerializer();
+    private static final CollectionSerializer COLLECTION_SERIALIZER = new CollectionSerializer();
+    private static final ForeignKeySerializer FOREIGN_KEY_SERIALIZER = new ForeignKeySerializer();
+
+    /**
+     * Class of model
+     */
+    private final Class<T> modelClass;
+
+    /**
+     * Name of table in database
+     */
+    private final String tableName;
+
+    /**
+     * Fields in order of declaration
+     */
+    private final List<ModelFieldMetadata> fields;
+
+    /**
+     * Field set as primary key
+     */
+    private final ModelFieldMetadata primaryKey;
+
+    /**
+     * Fields by column name and by java name
+     */
+    private final Map<String, ModelFieldMetadata> fieldsByName;
+
+    /**
+     * Codec generated at compile time, null when model is handled by reflection
+     */
+    private final ModelCodec<T> codec;
+
+    /**
+     * Strategy creating instances of model
+     */
+    private final ModelInstantiator<T> instantiator;
+
+    /**
+     * Indexes declared with @Indexed
+     */
+    private final List<IndexMetadata> indexes;
+
+    private ModelMetadata(Class<T> modelClass, String tableName, List<ModelFieldMetadata> fields, ModelFieldMetadata primaryKey, ModelCodec<T> codec, ModelInstantiator<T> instantiator, List<IndexMetadata> indexes) {
+        this.modelClass = modelClass;
+        this.indexes = Collections.unmodifiableList(indexes);
+        this.codec = codec;
+        this.instantiator = instantiator;
+        this.tableName = tableName;
+        this.fields = Collections.unmodifiableList(fields);
+        this.primaryKey = primaryKey;
+        Map<String, ModelFieldMetadata> byName = new HashMap<>();
+        for (ModelFieldMetadata field : fields)
+            byName.put(field.getName(), field);
+        for (ModelFieldMetadata field : fields)
+            byName.put(field.getColumnName(), field);
+        this.fieldsByName = Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * Resolve metadata of model
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param serializers Registered serializers
+     * @param accessorFactory Factory of field accessors used when codec doesn't provide accessor
+     * @param codec Codec generated at compile time or null
+     * @return Metadata of model
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws MoreThanOnePrimaryKeyException Exception when model have more than one field set as primary key
+     * @throws NoPrimaryKeyException Exception when model don't have field as primary key
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws NoModelConstructorException Model doesn't have constructor usable to create it
+     */
+    public static <T extends BaseModel> ModelMetadata<T> of(Class<T> modelClass, SerializerRegistry serializers, FieldAccessorFactory accessorFactory, ModelCodec<T> codec) throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException, NoSerializerFoundException, NoModelConstructorException {
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        List<ModelFieldMetadata> fields = new ArrayList<>();
+        ModelFieldMetadata primaryKey = null;
+        for (Field declaredField : modelClass.getDeclaredFields()) {
+            ModelField annotation = declaredField.getAnnotation(ModelField.class);
+            if (annotation == null)
+                continue;
+            FieldKind kind;
+            Serializer<?> serializer;
+            StreamSerializer<?> streamSerializer = null;
+            Class<?> elementType = null;
+            Class<?> keyType = null;
+            Class<?> referencedType = null;
+            if (Map.class.isAssignableFrom(declaredField.getType())) {
+                kind = FieldKind.MAP;
+                serializer = MAP_SERIALIZER;
+                keyType = typeArgument(declaredField, 0, serializers);
+                elementType = typeArgument(declaredField, 1, serializers);
+            }
+            else if (Collection.class.isAssignableFrom(declaredField.getType())) {
+                kind = FieldKind.COLLECTION;
+                serializer = COLLECTION_SERIALIZER;
+                elementType = typeArgument(declaredField, 0, serializers);
+            }
+            else if (annotation.isForeignKey()) {
+                kind = FieldKind.FOREIGN_KEY;
+                serializer = FOREIGN_KEY_SERIALIZER;
+                referencedType = declaredField.getType() == ForeignKeyReference.class ? typeArgument(declaredField, 0) : declaredField.getType();
+                if (referencedType == null || !BaseModel.class.isAssignableFrom(referencedType))
+                    throw new NoSerializerFoundException();
+            }
+            else {
+                kind = FieldKind.VALUE;
+                serializer = serializers.getBound(declaredField.getType());
+                streamSerializer = serializers.getStream(declaredField.getType());
+            }
+            if (serializer == null && streamSerializer == null)
+                throw new NoSerializerFoundException();
+            String name = annotation.name();
+            if (name.equals(""))
+                name = declaredField.getName();
+            declaredField.setAccessible(true);
+            FieldAccessor accessor = codec != null ? codec.getAccessor(declaredField.getName()) : null;
+            if (accessor == null)
+                accessor = accessorFactory.create(declaredField);
+            ModelFieldMetadata field = new ModelFieldMetadata(fields.size(), declaredField, accessor, name, kind, annotation.isPrimaryKey(), serializer, streamSerializer, elementType, keyType, referencedType);
+            if (field.isPrimaryKey()) {
+                if (primaryKey != null)
+                    throw new MoreThanOnePrimaryKeyException();
+                primaryKey = field;
+            }
+            fields.add(field);
+        }
+        if (primaryKey == null)
+            throw new NoPrimaryKeyException();
+        return new ModelMetadata<>(modelClass, modelClass.getAnnotation(Model.class).tableName(), fields, primaryKey, codec, resolveInstantiator(modelClass, fields, codec), resolveIndexes(fields));
+    }
+
+    /**
+     * Group fields annotated with @Indexed into indexes, fields of compound index share its name
+     */
+    private static List<IndexMetadata> resolveIndexes(List<ModelFieldMetadata> fields) {
+        Map<String, List<ModelFieldMetadata>> byName = new LinkedHashMap<>();
+        for (ModelFieldMetadata field : fields) {
+            Indexed indexed = field.getField().getAnnotation(Indexed.class);
+            if (indexed != null)
+                byName.computeIfAbsent(indexed.name().equals("") ? field.getColumnName() : indexed.name(), k -> new ArrayList<>()).add(field);
+        }
+        List<IndexMetadata> indexes = new ArrayList<>();
+        for (Map.Entry<String, List<ModelFieldMetadata>> entry : byName.entrySet()) {
+            List<ModelFieldMetadata> indexFields = entry.getValue();
+            // Stable sort keeps order of declaration for equal order
+            indexFields.sort(Comparator.comparingInt(field -> field.getField().getAnnotation(Indexed.class).order()));
+            List<Boolean> descending = new ArrayList<>();
+            boolean unique = false;
+            boolean sparse = false;
+            long expireAfterSeconds = -1;
+            for (ModelFieldMetadata field : indexFields) {
+                Indexed indexed = field.getField().getAnnotation(Indexed.class);
+                descending.add(indexed.descending());
+                unique |= indexed.unique();
+                sparse |= indexed.sparse();
+                if (indexed.expireAfterSeconds() >= 0)
+                    expireAfterSeconds = indexed.expireAfterSeconds();
+            }
+            indexes.add(new IndexMetadata(entry.getKey(), indexFields, descending, unique, sparse, expireAfterSeconds));
+        }
+        return indexes;
+    }
+
+    /**
+     * Resolve type argument of field declared directly in its generic type, e.g. String in List&lt;String&gt;
+     * @return Type argument or null when it's not a class
+     */
+    private static Class<?> typeArgument(Field field, int index) {
+        Type genericType = field.getGenericType();
+        if (!(genericType instanceof ParameterizedType))
+            return null;
+        Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+        if (arguments.length <= index || !(arguments[index] instanceof Class))
+            return null;
+        return (Class<?>) arguments[index];
+    }
+
+    /**
+     * Resolve type argument of field which has serializer
+     * @return Type argument or null when it's not a class with serializer
+     */
+    private static Class<?> typeArgument(Field field, int index, SerializerRegistry serializers) {
+        Class<?> argument = typeArgument(field, index);
+        return argument != null && serializers.getStream(argument) != null ? argument : null;
+    }
+
+    /**
+     * Pick constructor annotated with @ModelConstructor, then no-args constructor, then constructor taking every field
+     */
+    private static <T extends BaseModel> ModelInstantiator<T> resolveInstantiator(Class<T> modelClass, List<ModelFieldMetadata> fields, ModelCodec<T> codec) throws NoModelConstructorException {
+        Constructor<T> annotated = null;
+        Constructor<T> noArgs = null;
+        for (Constructor<?> declaredConstructor : modelClass.getDeclaredConstructors()) {
+            Constructor<T> constructor = (Constructor<T>) declaredConstructor;
+            if (constructor.isAnnotationPresent(ModelConstructor.class)) {
+                if (annotated != null)
+                    throw new NoModelConstructorException("Model " + modelClass.getName() + " has more than one @ModelConstructor");
+                annotated = constructor;
+            }
+            if (constructor.getParameterCount() == 0)
+                noArgs = constructor;
+        }
+        if (annotated != null) {
+            int[] parameterFields = bindParameters(annotated, fields);
+            if (parameterFields == null)
+                throw new NoModelConstructorException("Parameters of @ModelConstructor in " + modelClass.getName() + " don't match @ModelField fields");
+            return new ConstructorInstantiator<>(annotated, parameterFields);
+        }
+        boolean hasFinalFields = false;
+        for (ModelFieldMetadata field : fields)
+            hasFinalFields |= Modifier.isFinal(field.getField().getModifiers());
+        if (noArgs != null && !hasFinalFields)
+            return new NoArgsInstantiator<>(noArgs, codec, fields);
+        for (Constructor<?> declaredConstructor : modelClass.getDeclaredConstructors()) {
+            int[] parameterFields = bindParameters(declaredConstructor, fields);
+            if (parameterFields != null)
+                return new ConstructorInstantiator<>((Constructor<T>) declaredConstructor, parameterFields);
+        }
+        throw new NoModelConstructorException("Model " + modelClass.getName() + " needs no-args constructor and non-final fields or constructor taking every @ModelField");
+    }
+
+    /**
+     * Match constructor parameters to fields, by name if compiled with -parameters or by order
+     * @return Index of field for every parameter or null if constructor doesn't take every field
+     */
+    private static int[] bindParameters(Constructor<?> constructor, List<ModelFieldMetadata> fields) {
+        Parameter[] parameters = constructor.getParameters();
+        if (parameters.length != fields.size() || parameters.length == 0)
+            return null;
+        boolean byName = true;
+        for (Parameter parameter : parameters)
+            byName &= parameter.isNamePresent();
+        int[] parameterFields = new int[parameters.length];
+        Set<Integer> bound = new HashSet<>();
+        for (int i = 0; i < parameters.length; i++) {
+            ModelFieldMetadata field = null;
+            if (byName) {
+                for (ModelFieldMetadata candidate : fields)
+                    if (candidate.getName().equals(parameters[i].getName()))
+                        field = candidate;
+            }
+            else
+                field = fields.get(i);
+            if (field == null || field.getType() != parameters[i].getType() || !bound.add(field.getIndex()))
+                return null;
+            parameterFields[i] = field.getIndex();
+        }
+        return parameterFields;
+    }
+
+    public Class<T> getModelClass() {
+        return modelClass;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<ModelFieldMetadata> getFields() {
+        return fields;
+    }
+
+    public ModelFieldMetadata getPrimaryKey() {
+        return primaryKey;
+    }
+
+    public ModelCodec<T> getCodec() {
+        return codec;
+    }
+
+    public ModelInstantiator<T> getInstantiator() {
+        return instantiator;
+    }
+
+    public List<IndexMetadata> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Copy of metadata with field stored in other column, e.g. primary key stored as identifier of document
+     * @param name Name of field or column
+     * @param columnName New name of column
+     * @return Metadata of model
+     * @throws IllegalArgumentException Model doesn't have such field
+     */
+    public ModelMetadata<T> withColumnName(String name, String columnName) {
+        ModelFieldMetadata renamed = getField(name);
+        if (renamed == null)
+            throw new IllegalArgumentException("Model " + modelClass.getName() + " doesn't have field " + name);
+        List<ModelFieldMetadata> renamedFields = new ArrayList<>(fields);
+        renamedFields.set(renamed.getIndex(), renamed.withColumnName(columnName));
+        List<IndexMetadata> renamedIndexes = new ArrayList<>();
+        for (IndexMetadata index : indexes) {
+            List<ModelFieldMetadata> indexFields = new ArrayList<>();
+            List<Boolean> descending = new ArrayList<>();
+            for (int i = 0; i < index.getFields().size(); i++) {
+                indexFields.add(renamedFields.get(index.getFields().get(i).getIndex()));
+                descending.add(index.isDescending(i));
+            }
+            renamedIndexes.add(new IndexMetadata(index.getName(), indexFields, descending, index.isUnique(), index.isSparse(), index.getExpireAfterSeconds()));
+        }
+        return new ModelMetadata<>(modelClass, tableName, renamedFields, renamedFields.get(primaryKey.getIndex()), codec, instantiator, renamedIndexes);
+    }
+
+    /**
+     * Get field by column name or by name of java field
+     * @param name Column or field name
+     * @return Field or null when model don't have such field
+     */
+    public ModelFieldMetadata getField(String name) {
+        return fieldsByName.get(name);
+    }
+}
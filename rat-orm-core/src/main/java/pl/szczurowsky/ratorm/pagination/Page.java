@@ -0,0 +1,47 @@
+package pl.szczurowsky.ratorm.pagination;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page of models ordered by primary key
+ * @param <T> Model class
+ */
+public final class Page<T> {
+
+    private final List<T> items;
+
+    /**
+     * Primary key of last model on page
+     */
+    private final Object lastKey;
+
+    private final boolean hasNext;
+
+    /**
+     * @param items Models on page
+     * @param lastKey Primary key of last model on page, null when page is empty
+     * @param hasNext Whether there are models after this page
+     */
+    public Page(List<T> items, Object lastKey, boolean hasNext) {
+        this.items = Collections.unmodifiableList(items);
+        this.lastKey = lastKey;
+        this.hasNext = hasNext;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Primary key of last model on page, passed to fetch next page
+     * @return Primary key or null when page is empty
+     */
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+}
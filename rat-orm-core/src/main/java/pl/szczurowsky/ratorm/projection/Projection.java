@@ -0,0 +1,109 @@
+package pl.szczurowsky.ratorm.projection;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Fields read by fetch, other fields of fetched models are left at defaults.
+ * Primary key is always read. Models fetched with projection mustn't be saved, missing fields would overwrite stored ones
+ */
+public final class Projection {
+
+    /**
+     * Names of fields or columns
+     */
+    private final Set<String> fields;
+
+    /**
+     * Names which aren't fields of model are rejected
+     */
+    private final boolean strict;
+
+    private Projection(Set<String> fields, boolean strict) {
+        this.fields = Collections.unmodifiableSet(fields);
+        this.strict = strict;
+    }
+
+    /**
+     * Projection of named fields
+     * @param fields Names of java fields or columns
+     * @return Projection
+     */
+    public static Projection of(String... fields) {
+        return new Projection(new LinkedHashSet<>(Arrays.asList(fields)), true);
+    }
+
+    /**
+     * Projection of fields declared by projection type: getters of interface or fields of class.
+     * Names which aren't fields of fetched model are ignored
+     * @param projectionType Interface or class
+     * @return Projection
+     */
+    public static Projection of(Class<?> projectionType) {
+        Set<String> fields = new LinkedHashSet<>();
+        if (projectionType.isInterface()) {
+            for (Method method : projectionType.getMethods()) {
+                if (method.getParameterCount() != 0 || method.isDefault() || Modifier.isStatic(method.getModifiers()))
+                    continue;
+                fields.add(propertyName(method.getName()));
+            }
+        }
+        else {
+            for (Class<?> type = projectionType; type != null && type != Object.class && type != BaseModel.class; type = type.getSuperclass())
+                for (Field field : type.getDeclaredFields())
+                    if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic())
+                        fields.add(field.getName());
+        }
+        return new Projection(fields, false);
+    }
+
+    /**
+     * Name of property read by getter, e.g. name for getName and active for isActive
+     */
+    private static String propertyName(String methodName) {
+        if (methodName.startsWith("get") && methodName.length() > 3)
+            return decapitalize(methodName.substring(3));
+        if (methodName.startsWith("is") && methodName.length() > 2)
+            return decapitalize(methodName.substring(2));
+        return methodName;
+    }
+
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)))
+            return name;
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Resolve projected fields of model
+     * @param metadata Metadata of model
+     * @return Projected fields with primary key in order of declaration
+     * @throws IllegalArgumentException Named field doesn't exist in model
+     */
+    public List<ModelFieldMetadata> resolve(ModelMetadata<?> metadata) {
+        boolean[] projected = new boolean[metadata.getFields().size()];
+        projected[metadata.getPrimaryKey().getIndex()] = true;
+        for (String name : fields) {
+            ModelFieldMetadata field = metadata.getField(name);
+            if (field != null)
+                projected[field.getIndex()] = true;
+            else if (strict)
+                throw new IllegalArgumentException("Model " + metadata.getModelClass().getName() + " doesn't have field " + name);
+        }
+        List<ModelFieldMetadata> resolved = new ArrayList<>();
+        for (ModelFieldMetadata field : metadata.getFields())
+            if (projected[field.getIndex()])
+                resolved.add(field);
+        return resolved;
+    }
+}
@@ -0,0 +1,212 @@
+package pl.szczurowsky.ratorm.query;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.enums.FieldKind;
+import pl.szczurowsky.ratorm.enums.QueryOperator;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Query resolved against model metadata, evaluated in memory
+ * @param <T> Model class
+ */
+public final class CompiledQuery<T extends BaseModel> {
+
+    /**
+     * Maximum number of results, 0 when unlimited. Query itself isn't kept, compiled queries are cached by weak reference to it
+     */
+    private final int limit;
+
+    private final Predicate<T> predicate;
+
+    /**
+     * Order of results or null when query isn't sorted
+     */
+    private final Comparator<T> order;
+
+    private CompiledQuery(int limit, Predicate<T> predicate, Comparator<T> order) {
+        this.limit = limit;
+        this.predicate = predicate;
+        this.order = order;
+    }
+
+    /**
+     * Resolve fields of query and convert compared values to types of fields
+     * @param <T> Model class
+     * @param query Query
+     * @param metadata Metadata of model
+     * @return Compiled query
+     * @throws IllegalArgumentException Query uses field which model doesn't have
+     */
+    public static <T extends BaseModel> CompiledQuery<T> compile(Query<T> query, ModelMetadata<T> metadata) {
+        Predicate<T> predicate = query.getCondition() == null ? model -> true : compile(query.getCondition(), metadata);
+        Comparator<T> order = null;
+        for (Sort sort : query.getSorts()) {
+            ModelFieldMetadata field = field(metadata, sort.getField());
+            Comparator<T> byField = (a, b) -> compareNullable(field.getAccessor().get(a), field.getAccessor().get(b));
+            if (!sort.isAscending())
+                byField = byField.reversed();
+            order = order == null ? byField : order.thenComparing(byField);
+        }
+        return new CompiledQuery<>(query.getLimit(), predicate, order);
+    }
+
+    private static <T extends BaseModel> Predicate<T> compile(Condition condition, ModelMetadata<T> metadata) {
+        if (condition.isComposite()) {
+            List<Predicate<T>> predicates = new ArrayList<>();
+            for (Condition child : condition.getConditions())
+                predicates.add(compile(child, metadata));
+            Predicate<T> combined = null;
+            for (Predicate<T> predicate : predicates)
+                combined = combined == null ? predicate : condition.getOperator() == QueryOperator.AND ? combined.and(predicate) : combined.or(predicate);
+            return combined != null ? combined : model -> condition.getOperator() == QueryOperator.AND;
+        }
+        ModelFieldMetadata field = field(metadata, condition.getField());
+        List<Object> values = new ArrayList<>(condition.getValues().size());
+        for (Object value : condition.getValues())
+            values.add(convert(field, value));
+        Object value = values.isEmpty() ? null : values.get(0);
+        switch (condition.getOperator()) {
+            case EQUALS:
+                return model -> valuesEqual(field.getAccessor().get(model), value);
+            case NOT_EQUALS:
+                return model -> !valuesEqual(field.getAccessor().get(model), value);
+            case GREATER_THAN:
+                return model -> inRange(field.getAccessor().get(model), value, result -> result > 0);
+            case GREATER_THAN_EQUALS:
+                return model -> inRange(field.getAccessor().get(model), value, result -> result >= 0);
+            case LESS_THAN:
+                return model -> inRange(field.getAccessor().get(model), value, result -> result < 0);
+            case LESS_THAN_EQUALS:
+                return model -> inRange(field.getAccessor().get(model), value, result -> result <= 0);
+            case IN:
+                return model -> contains(values, field.getAccessor().get(model));
+            case NOT_IN:
+                return model -> !contains(values, field.getAccessor().get(model));
+            default:
+                throw new IllegalArgumentException("Unsupported operator " + condition.getOperator());
+        }
+    }
+
+    /**
+     * Get field of model by name of field or column
+     * @throws IllegalArgumentException Model doesn't have such field
+     */
+    static ModelFieldMetadata field(ModelMetadata<?> metadata, String name) {
+        ModelFieldMetadata field = metadata.getField(name);
+        if (field == null)
+            throw new IllegalArgumentException("Model " + metadata.getModelClass().getName() + " doesn't have field " + name);
+        return field;
+    }
+
+    /**
+     * Values passed as string to field of other type are deserialized, e.g. primary keys of foreign keys
+     */
+    private static Object convert(ModelFieldMetadata field, Object value) {
+        if (!(value instanceof String) || field.getKind() != FieldKind.VALUE || field.getType() == String.class || field.getType().isInstance(value))
+            return value;
+        Serializer<?> serializer = field.getSerializer();
+        if (serializer == null)
+            return value;
+        try {
+            Object deserialized = serializer.deserialize((String) value);
+            return deserialized != null ? deserialized : value;
+        } catch (Exception e) {
+            return value;
+        }
+    }
+
+    private static boolean contains(List<Object> values, Object fieldValue) {
+        for (Object value : values)
+            if (valuesEqual(fieldValue, value))
+                return true;
+        return false;
+    }
+
+    private static boolean valuesEqual(Object fieldValue, Object value) {
+        if (fieldValue instanceof Number && value instanceof Number)
+            return compareNumbers((Number) fieldValue, (Number) value) == 0;
+        return Objects.equals(fieldValue, value);
+    }
+
+    /**
+     * Compare value of field for range operators, missing value and value of other type than bound don't match any range
+     */
+    private static boolean inRange(Object fieldValue, Object value, IntPredicate accepted) {
+        return fieldValue != null && value != null && comparable(fieldValue, value) && accepted.test(compareValues(fieldValue, value));
+    }
+
+    private static boolean comparable(Object a, Object b) {
+        return a instanceof Number && b instanceof Number || a instanceof Comparable && a.getClass().isInstance(b);
+    }
+
+    private static int compareNullable(Object a, Object b) {
+        if (a == null || b == null)
+            return a == null ? (b == null ? 0 : -1) : 1;
+        return compareValues(a, b);
+    }
+
+    private static int compareValues(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number)
+            return compareNumbers((Number) a, (Number) b);
+        if (comparable(a, b))
+            return ((Comparable<Object>) a).compareTo(b);
+        throw new IllegalArgumentException("Cannot compare " + a.getClass().getName() + " with " + b.getClass().getName());
+    }
+
+    private static int compareNumbers(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b))
+            return Long.compare(a.longValue(), b.longValue());
+        if ((a instanceof Double || a instanceof Float || isIntegral(a)) && (b instanceof Double || b instanceof Float || isIntegral(b)))
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        return toBigDecimal(a).compareTo(toBigDecimal(b));
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal)
+            return (BigDecimal) number;
+        if (number instanceof BigInteger)
+            return new BigDecimal((BigInteger) number);
+        return new BigDecimal(number.toString());
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Check if model matches condition of query
+     * @param model Model
+     * @return Whether model matches
+     */
+    public boolean matches(T model) {
+        return predicate.test(model);
+    }
+
+    /**
+     * Filter, sort and limit models
+     * @param objects Stream of models
+     * @return Matching models
+     */
+    public List<T> apply(Stream<T> objects) {
+        Stream<T> matching = objects.filter(predicate);
+        if (order != null)
+            matching = matching.sorted(order);
+        if (limit > 0)
+            matching = matching.limit(limit);
+        return matching.collect(Collectors.toList());
+    }
+}
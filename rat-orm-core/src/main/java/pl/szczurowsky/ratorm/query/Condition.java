@@ -0,0 +1,119 @@
+package pl.szczurowsky.ratorm.query;
+
+import pl.szczurowsky.ratorm.enums.QueryOperator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable predicate over @ModelField values, comparison of one field or AND/OR of other conditions
+ */
+public final class Condition {
+
+    private final QueryOperator operator;
+
+    /**
+     * Name of field or column, null for AND/OR
+     */
+    private final String field;
+
+    /**
+     * Not serialized compared values, one for comparisons
+     */
+    private final List<Object> values;
+
+    /**
+     * Combined conditions of AND/OR
+     */
+    private final List<Condition> conditions;
+
+    private Condition(QueryOperator operator, String field, List<Object> values, List<Condition> conditions) {
+        this.operator = operator;
+        this.field = field;
+        this.values = Collections.unmodifiableList(values);
+        this.conditions = Collections.unmodifiableList(conditions);
+    }
+
+    private static Condition comparison(QueryOperator operator, String field, Object value) {
+        return new Condition(operator, field, Collections.singletonList(value), Collections.emptyList());
+    }
+
+    public static Condition equals(String field, Object value) {
+        return comparison(QueryOperator.EQUALS, field, value);
+    }
+
+    public static Condition notEquals(String field, Object value) {
+        return comparison(QueryOperator.NOT_EQUALS, field, value);
+    }
+
+    public static Condition greaterThan(String field, Object value) {
+        return comparison(QueryOperator.GREATER_THAN, field, value);
+    }
+
+    public static Condition greaterThanEquals(String field, Object value) {
+        return comparison(QueryOperator.GREATER_THAN_EQUALS, field, value);
+    }
+
+    public static Condition lessThan(String field, Object value) {
+        return comparison(QueryOperator.LESS_THAN, field, value);
+    }
+
+    public static Condition lessThanEquals(String field, Object value) {
+        return comparison(QueryOperator.LESS_THAN_EQUALS, field, value);
+    }
+
+    public static Condition in(String field, Collection<?> values) {
+        return new Condition(QueryOperator.IN, field, new ArrayList<>(values), Collections.emptyList());
+    }
+
+    public static Condition in(String field, Object... values) {
+        return in(field, Arrays.asList(values));
+    }
+
+    public static Condition notIn(String field, Collection<?> values) {
+        return new Condition(QueryOperator.NOT_IN, field, new ArrayList<>(values), Collections.emptyList());
+    }
+
+    public static Condition notIn(String field, Object... values) {
+        return notIn(field, Arrays.asList(values));
+    }
+
+    public static Condition and(Condition... conditions) {
+        return new Condition(QueryOperator.AND, null, Collections.emptyList(), new ArrayList<>(Arrays.asList(conditions)));
+    }
+
+    public static Condition or(Condition... conditions) {
+        return new Condition(QueryOperator.OR, null, Collections.emptyList(), new ArrayList<>(Arrays.asList(conditions)));
+    }
+
+    public QueryOperator getOperator() {
+        return operator;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Compared value of comparison
+     * @return Value
+     */
+    public Object getValue() {
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    public boolean isComposite() {
+        return operator == QueryOperator.AND || operator == QueryOperator.OR;
+    }
+}
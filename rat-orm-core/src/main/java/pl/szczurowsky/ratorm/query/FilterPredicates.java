@@ -0,0 +1,197 @@
+package pl.szczurowsky.ratorm.query;
+
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+import pl.szczurowsky.ratorm.enums.FilterExpression;
+
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Compiles filter expression of one field into predicate specialised for type of field.
+ * Primitive fields are compared without boxing, bound value is converted once
+ */
+public final class FilterPredicates {
+
+    private FilterPredicates() {
+    }
+
+    /**
+     * Compile expression
+     * @param <T> Model class
+     * @param accessor Accessor of field
+     * @param type Declared type of field
+     * @param expression Expression
+     * @param value Compared value, numbers can be passed in their string form
+     * @return Predicate, never matching models with null field value
+     */
+    public static <T> Predicate<T> compile(FieldAccessor accessor, Class<?> type, FilterExpression expression, Object value) {
+        if (value == null)
+            return model -> false;
+        if (type == long.class || type == int.class || type == short.class || type == byte.class)
+            return integral(accessor, expression, value);
+        if (type == double.class || type == float.class)
+            return floating(accessor, expression, value);
+        if (type == Long.class || type == Integer.class || type == Short.class || type == Byte.class)
+            return boxedIntegral(accessor, expression, value);
+        if (type == Double.class || type == Float.class)
+            return boxedFloating(accessor, expression, value);
+        if (type == BigInteger.class)
+            return bigInteger(accessor, expression, value);
+        return object(accessor, expression, value);
+    }
+
+    private static <T> Predicate<T> integral(FieldAccessor accessor, FilterExpression expression, Object value) {
+        Long bound = toLong(value);
+        if (bound == null)
+            return model -> expression == FilterExpression.NOT_EQUALS;
+        LongPredicate accepted = longPredicate(expression, bound);
+        return model -> accepted.test(accessor.getLong(model));
+    }
+
+    private static <T> Predicate<T> boxedIntegral(FieldAccessor accessor, FilterExpression expression, Object value) {
+        Long bound = toLong(value);
+        if (bound == null)
+            return model -> expression == FilterExpression.NOT_EQUALS && accessor.get(model) != null;
+        LongPredicate accepted = longPredicate(expression, bound);
+        return model -> {
+            Number number = (Number) accessor.get(model);
+            return number != null && accepted.test(number.longValue());
+        };
+    }
+
+    private static <T> Predicate<T> floating(FieldAccessor accessor, FilterExpression expression, Object value) {
+        Double bound = toDouble(value);
+        if (bound == null)
+            return model -> expression == FilterExpression.NOT_EQUALS;
+        double limit = bound;
+        return model -> accepts(expression, Double.compare(accessor.getDouble(model), limit));
+    }
+
+    private static <T> Predicate<T> boxedFloating(FieldAccessor accessor, FilterExpression expression, Object value) {
+        Double bound = toDouble(value);
+        if (bound == null)
+            return model -> expression == FilterExpression.NOT_EQUALS && accessor.get(model) != null;
+        double limit = bound;
+        return model -> {
+            Number number = (Number) accessor.get(model);
+            return number != null && accepts(expression, Double.compare(number.doubleValue(), limit));
+        };
+    }
+
+    private static <T> Predicate<T> bigInteger(FieldAccessor accessor, FilterExpression expression, Object value) {
+        BigInteger bound;
+        try {
+            bound = value instanceof BigInteger ? (BigInteger) value : new BigInteger(value.toString());
+        } catch (NumberFormatException e) {
+            return model -> expression == FilterExpression.NOT_EQUALS && accessor.get(model) != null;
+        }
+        return model -> {
+            BigInteger number = (BigInteger) accessor.get(model);
+            return number != null && accepts(expression, number.compareTo(bound));
+        };
+    }
+
+    /**
+     * Equality for any type. Ranges with bound which is integer or its string form compare both values as integers,
+     * e.g. "15" is greater than "9", other ranges compare comparable values of the same type
+     */
+    private static <T> Predicate<T> object(FieldAccessor accessor, FilterExpression expression, Object value) {
+        if (expression == FilterExpression.EQUALS)
+            return model -> Objects.equals(accessor.get(model), value);
+        if (expression == FilterExpression.NOT_EQUALS)
+            return model -> {
+                Object fieldValue = accessor.get(model);
+                return fieldValue != null && !fieldValue.equals(value);
+            };
+        Long bound = toLong(value);
+        if (bound != null || value instanceof Number) {
+            if (bound == null)
+                return model -> false;
+            LongPredicate accepted = longPredicate(expression, bound);
+            return model -> {
+                Long parsed = toLong(accessor.get(model));
+                return parsed != null && accepted.test(parsed);
+            };
+        }
+        if (!(value instanceof Comparable))
+            return model -> false;
+        Class<?> boundType = value.getClass();
+        return model -> {
+            Object fieldValue = accessor.get(model);
+            return fieldValue != null && fieldValue.getClass() == boundType && accepts(expression, ((Comparable<Object>) fieldValue).compareTo(value));
+        };
+    }
+
+    private static LongPredicate longPredicate(FilterExpression expression, long bound) {
+        switch (expression) {
+            case GREATER_THAN:
+                return number -> number > bound;
+            case LESS_THAN:
+                return number -> number < bound;
+            case EQUALS:
+                return number -> number == bound;
+            case NOT_EQUALS:
+                return number -> number != bound;
+            case GREATER_THAN_EQUALS:
+                return number -> number >= bound;
+            case LESS_THAN_EQUALS:
+                return number -> number <= bound;
+            default:
+                return number -> false;
+        }
+    }
+
+    /**
+     * Check result of comparison of field value to bound
+     */
+    private static boolean accepts(FilterExpression expression, int comparison) {
+        switch (expression) {
+            case GREATER_THAN:
+                return comparison > 0;
+            case LESS_THAN:
+                return comparison < 0;
+            case EQUALS:
+                return comparison == 0;
+            case NOT_EQUALS:
+                return comparison != 0;
+            case GREATER_THAN_EQUALS:
+                return comparison >= 0;
+            case LESS_THAN_EQUALS:
+                return comparison <= 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Convert integral number or its string form
+     * @return Value or null when it isn't integral number
+     */
+    private static Long toLong(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return ((Number) value).longValue();
+        if (value == null)
+            return null;
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Convert number or its string form
+     * @return Value or null when it isn't number
+     */
+    private static Double toDouble(Object value) {
+        if (value instanceof Number)
+            return ((Number) value).doubleValue();
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package pl.szczurowsky.ratorm.query;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable query, thread-safe and reusable. Databases translate query once and reuse translation on next executions
+ * @param <T> Model class
+ */
+public final class Query<T extends BaseModel> {
+
+    private final Class<T> modelClass;
+
+    /**
+     * Condition or null when every model matches
+     */
+    private final Condition condition;
+
+    private final List<Sort> sorts;
+
+    /**
+     * Maximum number of results, 0 when unlimited
+     */
+    private final int limit;
+
+    Query(Class<T> modelClass, Condition condition, List<Sort> sorts, int limit) {
+        this.modelClass = modelClass;
+        this.condition = condition;
+        this.sorts = Collections.unmodifiableList(sorts);
+        this.limit = limit;
+    }
+
+    /**
+     * Start building query
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @return Builder
+     */
+    public static <T extends BaseModel> QueryBuilder<T> builder(Class<T> modelClass) {
+        return new QueryBuilder<>(modelClass);
+    }
+
+    public Class<T> getModelClass() {
+        return modelClass;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public List<Sort> getSorts() {
+        return sorts;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,73 @@
+package pl.szczurowsky.ratorm.query;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builder of {@link Query}, conditions passed to where are combined with AND
+ * @param <T> Model class
+ */
+public class QueryBuilder<T extends BaseModel> {
+
+    private final Class<T> modelClass;
+
+    private final List<Condition> conditions = new ArrayList<>();
+
+    private final List<Sort> sorts = new ArrayList<>();
+
+    private int limit;
+
+    QueryBuilder(Class<T> modelClass) {
+        this.modelClass = modelClass;
+    }
+
+    public QueryBuilder<T> where(Condition condition) {
+        this.conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * Sort ascending by field, next calls sort models with equal values
+     * @param field Name of field or column
+     * @return Builder
+     */
+    public QueryBuilder<T> sortAscending(String field) {
+        this.sorts.add(new Sort(field, true));
+        return this;
+    }
+
+    /**
+     * Sort descending by field, next calls sort models with equal values
+     * @param field Name of field or column
+     * @return Builder
+     */
+    public QueryBuilder<T> sortDescending(String field) {
+        this.sorts.add(new Sort(field, false));
+        return this;
+    }
+
+    /**
+     * Limit number of results
+     * @param limit Maximum number of results, 0 when unlimited
+     * @return Builder
+     */
+    public QueryBuilder<T> limit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Limit can't be negative");
+        this.limit = limit;
+        return this;
+    }
+
+    public Query<T> build() {
+        Condition condition;
+        if (conditions.isEmpty())
+            condition = null;
+        else if (conditions.size() == 1)
+            condition = conditions.get(0);
+        else
+            condition = Condition.and(conditions.toArray(new Condition[0]));
+        return new Query<>(modelClass, condition, new ArrayList<>(sorts), limit);
+    }
+}
@@ -0,0 +1,24 @@
+package pl.szczurowsky.ratorm.query;
+
+/**
+ * Order of query results by one field
+ */
+public final class Sort {
+
+    private final String field;
+
+    private final boolean ascending;
+
+    public Sort(String field, boolean ascending) {
+        this.field = field;
+        this.ascending = ascending;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+}
@@ -11,6 +11,6 @@ public class BigIntSerializer implements Serializer<BigInteger> {
 
     @Override
     public BigInteger deserialize(String receivedBigInt) {
-        return BigInteger.valueOf(Long.parseLong(receivedBigInt));
+        return new BigInteger(receivedBigInt);
     }
 }
@@ -0,0 +1,35 @@
+package pl.szczurowsky.ratorm.serializers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of classes loaded by name, used only while reading payloads of legacy format
+ */
+final class ClassNameCache {
+
+    private static final int MAX_SIZE = 256;
+
+    private static final Map<String, Class<?>> CLASSES = new LinkedHashMap<String, Class<?>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private ClassNameCache() {
+    }
+
+    static Class<?> forName(String name) throws ClassNotFoundException {
+        synchronized (CLASSES) {
+            Class<?> cached = CLASSES.get(name);
+            if (cached != null)
+                return cached;
+        }
+        Class<?> loaded = Class.forName(name);
+        synchronized (CLASSES) {
+            CLASSES.put(name, loaded);
+        }
+        return loaded;
+    }
+}
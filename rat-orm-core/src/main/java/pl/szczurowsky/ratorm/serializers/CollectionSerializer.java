@@ -1,24 +1,35 @@
 package pl.szczurowsky.ratorm.serializers;
 
 import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
 import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
 import pl.szczurowsky.ratorm.exception.SerializerException;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 
 public class CollectionSerializer implements Serializer<Object> {
 
-    public <T> String serializeCollection(Collection<T> providedCollection, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+    /**
+     * Registry of deprecated methods taking map of serializer classes
+     */
+    private final LegacyRegistryCache legacyRegistry = new LegacyRegistryCache();
+
+    /**
+     * Key of elements in format without class name, legacy format is plain array
+     */
+    private static final String VALUES_KEY = "$#Values#$";
+
+    public <T> String serializeCollection(Collection<T> providedCollection, SerializerRegistry serializers) throws SerializerException {
         try {
             JSONArray serializedToJsonArray = new JSONArray();
             Class<?> valueClass = null;
             for (T t : providedCollection) {
                 if (valueClass == null)
                     valueClass = t.getClass();
-                serializedToJsonArray.put(serializeValue(t.getClass(), serializers, t));
+                serializedToJsonArray.put(serializers.serialize(t.getClass(), t));
             }
             if (valueClass == null)
                 valueClass = Object.class;
@@ -28,15 +39,15 @@ public class CollectionSerializer implements Serializer<Object> {
             throw new SerializerException(e);
         }
     }
-    
-    public <T> Collection<T> deserializeCollection(String receivedCollection, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+
+    public <T> Collection<T> deserializeCollection(String receivedCollection, SerializerRegistry serializers) throws SerializerException {
         try {
             JSONArray receivedArray = new JSONArray(receivedCollection);
             Collection<T> deserializedCollection = new ArrayList<>();
-            Class<?> valueClass = Class.forName((String) receivedArray.get(receivedArray.length() - 1));
+            Class<?> valueClass = ClassNameCache.forName((String) receivedArray.get(receivedArray.length() - 1));
             receivedArray.remove(receivedArray.length() - 1);
             for (Object o : receivedArray) {
-                deserializedCollection.add((T) deserializeValue(valueClass, serializers, o));
+                deserializedCollection.add((T) serializers.deserialize(valueClass, String.valueOf(o)));
             }
             return deserializedCollection;
         }
@@ -45,40 +56,89 @@ public class CollectionSerializer implements Serializer<Object> {
         }
     }
 
-    public <T> Object deserializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+    /**
+     * Serialize collection without class name of elements, type is known from model schema
+     * @param providedCollection Collection
+     * @param elementType Type of elements
+     * @param serializers Registered serializers
+     * @return JSON object with array of serialized elements
+     * @throws SerializerException Wasn't able to serialize element
+     */
+    public <T> String serializeCollection(Collection<T> providedCollection, Class<?> elementType, SerializerRegistry serializers) throws SerializerException {
         try {
-            Class<? extends Serializer> serializer = serializers.get(modelClass);
-            if (serializer == null)
-                serializer = serializers.get(modelClass.getSuperclass());
-            if (serializer != null) {
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals("deserialize")) {
-                        return (T) declaredMethod.invoke(serializer.newInstance(), object);
-                    }
-                }
-            }
+            JSONArray serializedToJsonArray = new JSONArray();
+            for (T t : providedCollection)
+                serializedToJsonArray.put(t == null ? JSONObject.NULL : serializers.serialize(elementType, t));
+            return new JSONObject().put(VALUES_KEY, serializedToJsonArray).toString();
         } catch (Exception e) {
-            throw new NoSerializerFoundException();
+            throw new SerializerException(e);
         }
-        throw new NoSerializerFoundException();
     }
 
-    public <T> String serializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+    /**
+     * Deserialize collection of elements with type known from model schema, reads legacy format with class name too
+     * @param receivedCollection JSON object with array of elements or legacy JSON array ending with class name
+     * @param elementType Type of elements
+     * @param serializers Registered serializers
+     * @return Deserialized collection
+     * @throws SerializerException Wasn't able to deserialize element
+     */
+    public <T> Collection<T> deserializeCollection(String receivedCollection, Class<?> elementType, SerializerRegistry serializers) throws SerializerException {
         try {
-            Class<? extends Serializer> serializer = serializers.get(modelClass);
-            if (serializer == null)
-                serializer = serializers.get(modelClass.getSuperclass());
-            if (serializer != null) {
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals("serialize")) {
-                        return (String) declaredMethod.invoke(serializer.newInstance(), object);
-                    }
-                }
+            Object received = new JSONTokener(receivedCollection).nextValue();
+            JSONArray receivedArray;
+            int length;
+            if (received instanceof JSONObject) {
+                receivedArray = ((JSONObject) received).getJSONArray(VALUES_KEY);
+                length = receivedArray.length();
             }
-        } catch (Exception e) {
-            throw new NoSerializerFoundException();
+            else {
+                // Legacy format always ends with class name of elements
+                receivedArray = (JSONArray) received;
+                length = Math.max(receivedArray.length() - 1, 0);
+            }
+            Collection<T> deserializedCollection = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                Object o = receivedArray.get(i);
+                deserializedCollection.add(o == JSONObject.NULL ? null : (T) serializers.deserialize(elementType, String.valueOf(o)));
+            }
+            return deserializedCollection;
         }
-        throw new NoSerializerFoundException();
+        catch (Exception e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    /**
+     * @deprecated use {@link #serializeCollection(Collection, SerializerRegistry)} with shared registry
+     */
+    @Deprecated
+    public <T> String serializeCollection(Collection<T> providedCollection, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+        return serializeCollection(providedCollection, this.legacyRegistry.get(serializers));
+    }
+
+    /**
+     * @deprecated use {@link #deserializeCollection(String, SerializerRegistry)} with shared registry
+     */
+    @Deprecated
+    public <T> Collection<T> deserializeCollection(String receivedCollection, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+        return deserializeCollection(receivedCollection, this.legacyRegistry.get(serializers));
+    }
+
+    /**
+     * @deprecated use {@link SerializerRegistry#deserialize(Class, String)} with shared registry
+     */
+    @Deprecated
+    public <T> Object deserializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+        return this.legacyRegistry.deserializeValue(modelClass, serializers, object);
+    }
+
+    /**
+     * @deprecated use {@link SerializerRegistry#serialize(Class, Object)} with shared registry
+     */
+    @Deprecated
+    public <T> String serializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+        return this.legacyRegistry.serializeValue(modelClass, serializers, object);
     }
 
     @Override
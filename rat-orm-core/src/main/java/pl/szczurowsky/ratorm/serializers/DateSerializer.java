@@ -0,0 +1,16 @@
+package pl.szczurowsky.ratorm.serializers;
+
+import java.util.Date;
+
+public class DateSerializer implements Serializer<Date> {
+
+    @Override
+    public String serialize(Object providedObject) {
+        return String.valueOf(((Date) providedObject).getTime());
+    }
+
+    @Override
+    public Date deserialize(String receivedDate) {
+        return new Date(Long.parseLong(receivedDate));
+    }
+}
@@ -2,15 +2,47 @@ package pl.szczurowsky.ratorm.serializers;
 
 import pl.szczurowsky.ratorm.exception.SerializerException;
 
-public class EnumSerializer implements Serializer<Enum> {
+public class EnumSerializer implements TypeAwareSerializer<Enum> {
+
+    /**
+     * Enum class known from schema, null when class name is stored with value
+     */
+    private final Class<? extends Enum> type;
+
+    public EnumSerializer() {
+        this(null);
+    }
+
+    public EnumSerializer(Class<? extends Enum> type) {
+        this.type = type;
+    }
+
+    @Override
+    public Serializer<Enum> forType(Class<?> type) {
+        Class<?> enumClass = type;
+        // Constants with body are subclasses of enum class
+        while (enumClass != null && !enumClass.isEnum())
+            enumClass = enumClass.getSuperclass();
+        if (enumClass == null)
+            return this;
+        return new EnumSerializer((Class<? extends Enum>) enumClass);
+    }
+
     @Override
     public String serialize(Object providedObject) throws SerializerException {
+        if (type != null)
+            return ((Enum<?>) providedObject).name();
         return String.valueOf(providedObject) + " " + String.valueOf(providedObject.getClass()).replace("class ", "");
     }
 
     @Override
     public Enum deserialize(String receivedObject) throws ClassNotFoundException {
-        String[] splitted = receivedObject.split(" ");
-        return Enum.valueOf((Class<Enum>) Class.forName(splitted[1]), splitted[0]   );
+        int separator = receivedObject.indexOf(' ');
+        if (type != null)
+            return Enum.valueOf((Class<Enum>) type, separator < 0 ? receivedObject : receivedObject.substring(0, separator));
+        Class<?> enumClass = ClassNameCache.forName(receivedObject.substring(separator + 1));
+        while (!enumClass.isEnum())
+            enumClass = enumClass.getSuperclass();
+        return Enum.valueOf((Class<Enum>) enumClass, receivedObject.substring(0, separator));
     }
 }
@@ -1,18 +1,26 @@
 package pl.szczurowsky.ratorm.serializers;
 
 import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
 import pl.szczurowsky.ratorm.annotation.ModelField;
 import pl.szczurowsky.ratorm.database.Database;
 import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
 import pl.szczurowsky.ratorm.exception.SerializerException;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.serializers.stream.StringStreamSerializer;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.HashMap;
 
 public class ForeignKeySerializer implements Serializer<Object> {
 
-    public <T extends BaseModel> String serializeForeignKey(Class<T> foreignKeyClass, T foreignKeyValue, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+    /**
+     * Registry of deprecated methods taking map of serializer classes
+     */
+    private final LegacyRegistryCache legacyRegistry = new LegacyRegistryCache();
+
+    public <T extends BaseModel> String serializeForeignKey(Class<T> foreignKeyClass, T foreignKeyValue, SerializerRegistry serializers) throws SerializerException {
         try {
             String keyFieldName = "";
             String keyFieldValue = "";
@@ -20,59 +28,65 @@ public class ForeignKeySerializer implements Serializer<Object> {
                 if (field.isAnnotationPresent(ModelField.class) && field.getAnnotation(ModelField.class).isPrimaryKey()) {
                     field.setAccessible(true);
                     keyFieldName = field.getName();
-                    keyFieldValue = serializeValue(field.getType(), serializers, field.get(foreignKeyValue));
+                    keyFieldValue = serializers.serialize(field.getType(), field.get(foreignKeyValue));
                 }
             }
-            return keyFieldName + "#__#" + keyFieldValue;
+            return keyFieldName + ForeignKeyReference.SEPARATOR + keyFieldValue;
         } catch (Exception e) {
             throw new SerializerException(e);
         }
     }
 
+    /**
+     * Serialize foreign key with serializer of primary key resolved in metadata
+     * @param foreignKeyMetadata Metadata of referenced model
+     * @param foreignKeyValue Referenced model
+     * @return Name of primary key and its serialized value separated by {@link ForeignKeyReference#SEPARATOR}
+     * @throws SerializerException Primary key has only streaming serializer or wasn't serialized
+     */
+    public String serializeForeignKey(ModelMetadata<?> foreignKeyMetadata, BaseModel foreignKeyValue) throws SerializerException {
+        ModelFieldMetadata keyField = foreignKeyMetadata.getPrimaryKey();
+        Serializer<?> serializer = keyField.getSerializer();
+        if (serializer == null && keyField.getStreamSerializer() instanceof StringStreamSerializer)
+            serializer = ((StringStreamSerializer<?>) keyField.getStreamSerializer()).getSerializer();
+        if (serializer == null)
+            throw new SerializerException("Primary key " + keyField.getName() + " of " + foreignKeyMetadata.getModelClass().getName() + " has only streaming serializer");
+        return keyField.getName() + ForeignKeyReference.SEPARATOR + serializer.serialize(keyField.getAccessor().get(foreignKeyValue));
+    }
+
+    /**
+     * @deprecated use {@link #serializeForeignKey(Class, BaseModel, SerializerRegistry)} with shared registry
+     */
+    @Deprecated
+    public <T extends BaseModel> String serializeForeignKey(Class<T> foreignKeyClass, T foreignKeyValue, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+        return serializeForeignKey(foreignKeyClass, foreignKeyValue, this.legacyRegistry.get(serializers));
+    }
+
     public <T extends BaseModel> T deserializeForeignKey(Class<T> typeClass,String value, Database database) throws SerializerException {
-        String key = value.split("#__#")[0];
-        String valueToDeserialize = value.split("#__#")[1];
         try {
+            int separator = value.indexOf(ForeignKeyReference.SEPARATOR);
+            String key = value.substring(0, separator);
+            String valueToDeserialize = value.substring(separator + ForeignKeyReference.SEPARATOR.length());
             return database.fetchMatching(typeClass, key, valueToDeserialize).get(0);
         } catch (Exception e) {
             throw new SerializerException(e);
         }
     }
 
+    /**
+     * @deprecated use {@link SerializerRegistry#deserialize(Class, String)} with shared registry
+     */
+    @Deprecated
     public <T> Object deserializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
-        try {
-            Class<? extends Serializer> serializer = serializers.get(modelClass);
-            if (serializer == null)
-                serializer = serializers.get(modelClass.getSuperclass());
-            if (serializer != null) {
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals("deserialize")) {
-                        return (T) declaredMethod.invoke(serializer.newInstance(), object);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            throw new NoSerializerFoundException();
-        }
-        throw new NoSerializerFoundException();
+        return this.legacyRegistry.deserializeValue(modelClass, serializers, object);
     }
 
+    /**
+     * @deprecated use {@link SerializerRegistry#serialize(Class, Object)} with shared registry
+     */
+    @Deprecated
     public <T> String serializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
-        try {
-            Class<? extends Serializer> serializer = serializers.get(modelClass);
-            if (serializer == null)
-                serializer = serializers.get(modelClass.getSuperclass());
-            if (serializer != null) {
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals("serialize")) {
-                        return (String) declaredMethod.invoke(serializer.newInstance(), object);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            throw new NoSerializerFoundException();
-        }
-        throw new NoSerializerFoundException();
+        return this.legacyRegistry.serializeValue(modelClass, serializers, object);
     }
 
     @Override
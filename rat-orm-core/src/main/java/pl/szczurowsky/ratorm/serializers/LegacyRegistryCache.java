@@ -0,0 +1,62 @@
+package pl.szczurowsky.ratorm.serializers;
+
+import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry created from map of serializer classes passed to deprecated methods, recreated only when map changes
+ */
+final class LegacyRegistryCache {
+
+    private static final class Entry {
+        private final Map<Class<?>, Class<? extends Serializer>> serializerClasses;
+        private final SerializerRegistry registry;
+
+        private Entry(Map<Class<?>, Class<? extends Serializer>> serializerClasses, SerializerRegistry registry) {
+            this.serializerClasses = serializerClasses;
+            this.registry = registry;
+        }
+    }
+
+    private volatile Entry entry;
+
+    SerializerRegistry get(Map<Class<?>, Class<? extends Serializer>> serializerClasses) {
+        Entry current = this.entry;
+        if (current == null || !current.serializerClasses.equals(serializerClasses)) {
+            // Copy, caller can modify its map later
+            current = new Entry(new HashMap<>(serializerClasses), SerializerRegistry.of(serializerClasses));
+            this.entry = current;
+        }
+        return current.registry;
+    }
+
+    /**
+     * Serialize value like deprecated serializeValue methods, with serializer of class or its superclass
+     */
+    String serializeValue(Class<?> type, Map<Class<?>, Class<? extends Serializer>> serializerClasses, Object value) throws NoSerializerFoundException {
+        Serializer<?> serializer = this.get(serializerClasses).get(type);
+        if (serializer == null)
+            throw new NoSerializerFoundException();
+        try {
+            return serializer.serialize(value);
+        } catch (Exception e) {
+            throw new NoSerializerFoundException();
+        }
+    }
+
+    /**
+     * Deserialize value like deprecated deserializeValue methods, with serializer of class or its superclass
+     */
+    Object deserializeValue(Class<?> type, Map<Class<?>, Class<? extends Serializer>> serializerClasses, Object value) throws NoSerializerFoundException {
+        Serializer<?> serializer = this.get(serializerClasses).get(type);
+        if (serializer == null)
+            throw new NoSerializerFoundException();
+        try {
+            return serializer.deserialize(String.valueOf(value));
+        } catch (Exception e) {
+            throw new NoSerializerFoundException();
+        }
+    }
+}
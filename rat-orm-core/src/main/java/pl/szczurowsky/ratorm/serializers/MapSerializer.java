@@ -4,22 +4,26 @@ import org.json.JSONObject;
 import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
 import pl.szczurowsky.ratorm.exception.SerializerException;
 
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 
 public class MapSerializer implements Serializer<Object> {
 
-    public <K, V> Map<K, V> deserializeMap(String receivedMap, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+    /**
+     * Registry of deprecated methods taking map of serializer classes
+     */
+    private final LegacyRegistryCache legacyRegistry = new LegacyRegistryCache();
+
+    public <K, V> Map<K, V> deserializeMap(String receivedMap, SerializerRegistry serializers) throws SerializerException {
         try {
             JSONObject JSONObject = new JSONObject(receivedMap);
             Map<K, V> map = new HashMap<>();
-            Class<?> keyClass = Class.forName(JSONObject.getString("$#MapKey#$"));
-            Class<?> valueClass = Class.forName(JSONObject.getString("$#MapVar#$"));
+            Class<?> keyClass = ClassNameCache.forName(JSONObject.getString("$#MapKey#$"));
+            Class<?> valueClass = ClassNameCache.forName(JSONObject.getString("$#MapVar#$"));
             JSONObject.remove("$#MapKey#$");
             JSONObject.remove("$#MapVar#$");
             for (String s : JSONObject.keySet()) {
-                map.put((K) deserializeValue(keyClass, serializers, s), (V) deserializeValue(valueClass, serializers, JSONObject.get(s)));
+                map.put((K) serializers.deserialize(keyClass, s), (V) serializers.deserialize(valueClass, String.valueOf(JSONObject.get(s))));
             }
             return map;
         }
@@ -28,18 +32,19 @@ public class MapSerializer implements Serializer<Object> {
         }
     }
 
-    public <K, V> String serializeMap(Map<K, V> providedObject, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+    public <K, V> String serializeMap(Map<K, V> providedObject, SerializerRegistry serializers) throws SerializerException {
         try {
             JSONObject jsonObject = new JSONObject();
             Class<?> keyClass = null;
             Class<?> valueClass = null;
-            for (K k : providedObject.keySet()) {
-                V value = providedObject.get(k);
+            for (Map.Entry<K, V> entry : providedObject.entrySet()) {
+                K k = entry.getKey();
+                V value = entry.getValue();
                 if (keyClass == null)
                     keyClass = k.getClass();
                 if (valueClass == null)
                     valueClass = value.getClass();
-                jsonObject.put(serializeValue(k.getClass(), serializers, k), serializeValue(value.getClass(), serializers, value));
+                jsonObject.put(serializers.serialize(k.getClass(), k), serializers.serialize(value.getClass(), value));
             }
             if (keyClass == null || valueClass == null) {
                 keyClass = Object.class;
@@ -53,40 +58,84 @@ public class MapSerializer implements Serializer<Object> {
         }
     }
 
-    public <T> Object deserializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+    /**
+     * Serialize map without class names of keys and values, types are known from model schema
+     * @param providedObject Map
+     * @param keyType Type of keys
+     * @param valueType Type of values
+     * @param serializers Registered serializers
+     * @return JSON object of serialized entries
+     * @throws SerializerException Wasn't able to serialize entry
+     */
+    public <K, V> String serializeMap(Map<K, V> providedObject, Class<?> keyType, Class<?> valueType, SerializerRegistry serializers) throws SerializerException {
         try {
-            Class<? extends Serializer> serializer = serializers.get(modelClass);
-            if (serializer == null)
-                serializer = serializers.get(modelClass.getSuperclass());
-            if (serializer != null) {
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals("deserialize")) {
-                        return (T) declaredMethod.invoke(serializer.newInstance(), object);
-                    }
-                }
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<K, V> entry : providedObject.entrySet()) {
+                V value = entry.getValue();
+                jsonObject.put(serializers.serialize(keyType, entry.getKey()), value == null ? JSONObject.NULL : serializers.serialize(valueType, value));
             }
+            return jsonObject.toString();
         } catch (Exception e) {
-            throw new NoSerializerFoundException();
+            throw new SerializerException(e);
         }
-        throw new NoSerializerFoundException();
     }
 
-    public <T> String serializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+    /**
+     * Deserialize map with types known from model schema, reads legacy format with class names too
+     * @param receivedMap JSON object
+     * @param keyType Type of keys
+     * @param valueType Type of values
+     * @param serializers Registered serializers
+     * @return Deserialized map
+     * @throws SerializerException Wasn't able to deserialize entry
+     */
+    public <K, V> Map<K, V> deserializeMap(String receivedMap, Class<?> keyType, Class<?> valueType, SerializerRegistry serializers) throws SerializerException {
         try {
-            Class<? extends Serializer> serializer = serializers.get(modelClass);
-            if (serializer == null)
-                serializer = serializers.get(modelClass.getSuperclass());
-            if (serializer != null) {
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals("serialize")) {
-                        return (String) declaredMethod.invoke(serializer.newInstance(), object);
-                    }
-                }
+            JSONObject JSONObject = new JSONObject(receivedMap);
+            JSONObject.remove("$#MapKey#$");
+            JSONObject.remove("$#MapVar#$");
+            Map<K, V> map = new HashMap<>();
+            for (String s : JSONObject.keySet()) {
+                Object value = JSONObject.get(s);
+                map.put((K) serializers.deserialize(keyType, s), value == org.json.JSONObject.NULL ? null : (V) serializers.deserialize(valueType, String.valueOf(value)));
             }
-        } catch (Exception e) {
-            throw new NoSerializerFoundException();
+            return map;
         }
-        throw new NoSerializerFoundException();
+        catch (Exception e) {
+            throw new SerializerException(e);
+        }
+    }
+
+    /**
+     * @deprecated use {@link #deserializeMap(String, SerializerRegistry)} with shared registry
+     */
+    @Deprecated
+    public <K, V> Map<K, V> deserializeMap(String receivedMap, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+        return deserializeMap(receivedMap, this.legacyRegistry.get(serializers));
+    }
+
+    /**
+     * @deprecated use {@link #serializeMap(Map, SerializerRegistry)} with shared registry
+     */
+    @Deprecated
+    public <K, V> String serializeMap(Map<K, V> providedObject, HashMap<Class<?>, Class<? extends Serializer>> serializers) throws SerializerException {
+        return serializeMap(providedObject, this.legacyRegistry.get(serializers));
+    }
+
+    /**
+     * @deprecated use {@link SerializerRegistry#deserialize(Class, String)} with shared registry
+     */
+    @Deprecated
+    public <T> Object deserializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+        return this.legacyRegistry.deserializeValue(modelClass, serializers, object);
+    }
+
+    /**
+     * @deprecated use {@link SerializerRegistry#serialize(Class, Object)} with shared registry
+     */
+    @Deprecated
+    public <T> String serializeValue(Class<T> modelClass, HashMap<Class<?>, Class<? extends Serializer>> serializers, Object object) throws NoSerializerFoundException {
+        return this.legacyRegistry.serializeValue(modelClass, serializers, object);
     }
 
     @Override
@@ -0,0 +1,187 @@
+package pl.szczurowsky.ratorm.serializers;
+
+import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
+import pl.szczurowsky.ratorm.exception.SerializerException;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.StringStreamSerializer;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of serializer instances. Every serializer is created once and shared,
+ * so registered serializers have to be thread-safe.
+ * Lookups walk superclasses and interfaces once per class and memoize the result, including missing serializers.
+ */
+public class SerializerRegistry {
+
+    /**
+     * Map of serialized classes and their serializers
+     */
+    private final Map<Class<?>, Serializer<?>> serializers = new ConcurrentHashMap<>();
+
+    /**
+     * Map of serialized classes and their streaming serializers
+     */
+    private final Map<Class<?>, StreamSerializer<?>> streamSerializers = new ConcurrentHashMap<>();
+
+    /**
+     * Resolved serializers per class, replaced on every registration
+     */
+    private volatile ClassValue<Resolution> resolutions = newResolutions();
+
+    /**
+     * Result of lookup, serializers are null when class can't be serialized
+     */
+    private static final class Resolution {
+        private final Serializer<?> serializer;
+        private final Serializer<?> boundSerializer;
+        private final StreamSerializer<?> streamSerializer;
+
+        private Resolution(Serializer<?> serializer, Serializer<?> boundSerializer, StreamSerializer<?> streamSerializer) {
+            this.serializer = serializer;
+            this.boundSerializer = boundSerializer;
+            this.streamSerializer = streamSerializer;
+        }
+    }
+
+    /**
+     * Create registry from map of serializer classes
+     * @param serializerClasses Map of serialized classes and classes of their serializers
+     * @return Registry with one instance of every serializer
+     */
+    public static SerializerRegistry of(Map<Class<?>, Class<? extends Serializer>> serializerClasses) {
+        SerializerRegistry registry = new SerializerRegistry();
+        for (Map.Entry<Class<?>, Class<? extends Serializer>> entry : serializerClasses.entrySet())
+            registry.register(entry.getKey(), entry.getValue());
+        return registry;
+    }
+
+    /**
+     * Register serializer instance
+     * @param serializedObjectClass Class of object which is going to be used with provided serializer
+     * @param serializer Thread-safe serializer instance
+     */
+    public void register(Class<?> serializedObjectClass, Serializer<?> serializer) {
+        this.serializers.put(serializedObjectClass, serializer);
+        this.resolutions = newResolutions();
+    }
+
+    /**
+     * Register serializer by class, serializer is instantiated once
+     * @param serializedObjectClass Class of object which is going to be used with provided serializer
+     * @param serializerClass Class of serializer with public no-args constructor
+     */
+    public void register(Class<?> serializedObjectClass, Class<? extends Serializer> serializerClass) {
+        try {
+            this.register(serializedObjectClass, serializerClass.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Cannot create instance of serializer " + serializerClass.getName(), e);
+        }
+    }
+
+    /**
+     * Register streaming serializer instance, it takes precedence over string serializers
+     * @param serializedObjectClass Class of object which is going to be used with provided serializer
+     * @param serializer Thread-safe serializer instance
+     */
+    public void registerStream(Class<?> serializedObjectClass, StreamSerializer<?> serializer) {
+        this.streamSerializers.put(serializedObjectClass, serializer);
+        this.resolutions = newResolutions();
+    }
+
+    /**
+     * Get streaming serializer of class, resolved like {@link #get(Class)}.
+     * Classes with only string serializer get {@link StringStreamSerializer} adapter
+     * @param type Serialized class
+     * @return Streaming serializer or null if neither streaming nor string serializer is registered
+     */
+    public StreamSerializer<?> getStream(Class<?> type) {
+        return this.resolutions.get(type).streamSerializer;
+    }
+
+    /**
+     * Get serializer of class. Exact class wins, then nearest superclass, then interfaces and Object as last resort
+     * @param type Serialized class
+     * @return Serializer or null if not registered
+     */
+    public Serializer<?> get(Class<?> type) {
+        return this.resolutions.get(type).serializer;
+    }
+
+    /**
+     * Get serializer of class bound to it, see {@link TypeAwareSerializer}.
+     * Use when the same class is known while reading, e.g. from model schema
+     * @param type Serialized class
+     * @return Bound serializer or null if not registered
+     */
+    public Serializer<?> getBound(Class<?> type) {
+        return this.resolutions.get(type).boundSerializer;
+    }
+
+    private ClassValue<Resolution> newResolutions() {
+        return new ClassValue<Resolution>() {
+            @Override
+            protected Resolution computeValue(Class<?> type) {
+                Serializer<?> serializer = resolve(serializers, type);
+                Serializer<?> boundSerializer = serializer instanceof TypeAwareSerializer ? ((TypeAwareSerializer<?>) serializer).forType(type) : serializer;
+                StreamSerializer<?> streamSerializer = resolve(streamSerializers, type);
+                if (streamSerializer == null && boundSerializer != null)
+                    streamSerializer = new StringStreamSerializer<>(boundSerializer);
+                return new Resolution(serializer, boundSerializer, streamSerializer);
+            }
+        };
+    }
+
+    private static <S> S resolve(Map<Class<?>, S> serializers, Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            S serializer = serializers.get(current);
+            if (serializer != null)
+                return serializer;
+        }
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass())
+            interfaces.addAll(Arrays.asList(current.getInterfaces()));
+        while (!interfaces.isEmpty()) {
+            Class<?> current = interfaces.poll();
+            if (!visited.add(current))
+                continue;
+            S serializer = serializers.get(current);
+            if (serializer != null)
+                return serializer;
+            interfaces.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        return type.isPrimitive() ? null : serializers.get(Object.class);
+    }
+
+    /**
+     * Serialize value with serializer registered for class, bound to it
+     * @param type Class of value, the same class has to be used while deserializing
+     * @param value Value to serialize
+     * @return Serialized value
+     * @throws NoSerializerFoundException Serializer for class wasn't found
+     * @throws SerializerException Wasn't able to serialize object
+     */
+    public String serialize(Class<?> type, Object value) throws NoSerializerFoundException, SerializerException {
+        Serializer<?> serializer = this.getBound(type);
+        if (serializer == null)
+            throw new NoSerializerFoundException();
+        return serializer.serialize(value);
+    }
+
+    /**
+     * Deserialize value with serializer registered for class, bound to it
+     * @param type Class of value
+     * @param value Serialized value
+     * @return Deserialized value
+     * @throws NoSerializerFoundException Serializer for class wasn't found
+     * @throws ClassNotFoundException Serializer wasn't able to find class of value
+     */
+    public Object deserialize(Class<?> type, String value) throws NoSerializerFoundException, ClassNotFoundException {
+        Serializer<?> serializer = this.getBound(type);
+        if (serializer == null)
+            throw new NoSerializerFoundException();
+        return serializer.deserialize(value);
+    }
+}
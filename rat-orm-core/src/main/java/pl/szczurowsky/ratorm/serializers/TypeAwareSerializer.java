@@ -0,0 +1,15 @@
+package pl.szczurowsky.ratorm.serializers;
+
+/**
+ * Serializer storing type of value in payload unless it's bound to exact type known from model schema
+ * @param <T> Type of serialized/deserialize object
+ */
+public interface TypeAwareSerializer<T> extends Serializer<T> {
+
+    /**
+     * Get serializer bound to type, which doesn't store type in payload but still reads payloads containing it
+     * @param type Exact type of serialized values
+     * @return Bound serializer or this when type can't be bound
+     */
+    Serializer<T> forType(Class<?> type);
+}
@@ -0,0 +1,27 @@
+package pl.szczurowsky.ratorm.serializers.stream;
+
+import pl.szczurowsky.ratorm.exception.SerializerException;
+
+/**
+ * Serializer writing values directly to database writer without intermediate string.
+ * Instances are shared between threads, so they have to be thread-safe
+ * @param <T> Type of serialized/deserialized object
+ */
+public interface StreamSerializer<T> {
+
+    /**
+     * Write provided object
+     * @param writer Writer positioned where value is expected
+     * @param providedObject Object, may be null
+     * @throws SerializerException Wasn't able to serialize object
+     */
+    void write(ValueWriter writer, T providedObject) throws SerializerException;
+
+    /**
+     * Read object
+     * @param reader Reader positioned at value
+     * @return Deserialized object
+     * @throws SerializerException Wasn't able to deserialize object
+     */
+    T read(ValueReader reader) throws SerializerException;
+}
@@ -0,0 +1,47 @@
+package pl.szczurowsky.ratorm.serializers.stream;
+
+import pl.szczurowsky.ratorm.enums.ValueType;
+import pl.szczurowsky.ratorm.exception.SerializerException;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+
+/**
+ * Adapter of string serializer to streaming API, value is written as string
+ * @param <T> Type of serialized/deserialized object
+ */
+public class StringStreamSerializer<T> implements StreamSerializer<T> {
+
+    /**
+     * Adapted serializer
+     */
+    private final Serializer<T> serializer;
+
+    public StringStreamSerializer(Serializer<T> serializer) {
+        this.serializer = serializer;
+    }
+
+    public Serializer<T> getSerializer() {
+        return serializer;
+    }
+
+    @Override
+    public void write(ValueWriter writer, T providedObject) throws SerializerException {
+        String serialized = providedObject == null ? null : this.serializer.serialize(providedObject);
+        if (serialized == null)
+            writer.writeNull();
+        else
+            writer.writeString(serialized);
+    }
+
+    @Override
+    public T read(ValueReader reader) throws SerializerException {
+        if (reader.getCurrentType() == ValueType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        try {
+            return this.serializer.deserialize(reader.readString());
+        } catch (ClassNotFoundException e) {
+            throw new SerializerException(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package pl.szczurowsky.ratorm.serializers.stream;
+
+import pl.szczurowsky.ratorm.enums.ValueType;
+
+/**
+ * Backend-neutral reader of one value, counterpart of {@link ValueWriter}
+ */
+public interface ValueReader {
+
+    /**
+     * Get type of value at current position
+     * @return Type of value
+     */
+    ValueType getCurrentType();
+
+    void readNull();
+
+    String readString();
+
+    int readInt();
+
+    long readLong();
+
+    double readDouble();
+
+    boolean readBoolean();
+
+    byte[] readBinary();
+
+    void readStartArray();
+
+    void readEndArray();
+
+    void readStartDocument();
+
+    /**
+     * Move to next element of array or entry of document
+     * @return false when end of array or document was reached
+     */
+    boolean hasNext();
+
+    /**
+     * Read name of current document entry, call after {@link #hasNext()}
+     * @return Name of entry
+     */
+    String readName();
+
+    void readEndDocument();
+
+    /**
+     * Skip value at current position
+     */
+    void skipValue();
+}
@@ -0,0 +1,36 @@
+package pl.szczurowsky.ratorm.serializers.stream;
+
+/**
+ * Backend-neutral writer of one value, implemented by database modules on top of their native writers.
+ * Arrays and documents may be nested, every document entry starts with {@link #writeName(String)}
+ */
+public interface ValueWriter {
+
+    void writeNull();
+
+    void writeString(String value);
+
+    void writeInt(int value);
+
+    void writeLong(long value);
+
+    void writeDouble(double value);
+
+    void writeBoolean(boolean value);
+
+    void writeBinary(byte[] value);
+
+    void writeStartArray();
+
+    void writeEndArray();
+
+    void writeStartDocument();
+
+    /**
+     * Write name of next document entry
+     * @param name Name of entry
+     */
+    void writeName(String name);
+
+    void writeEndDocument();
+}
@@ -0,0 +1,57 @@
+package pl.szczurowsky.ratorm.session;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Models keyed by model class and value of primary key, at most one instance per key.
+ * Not thread-safe
+ */
+public class IdentityMap {
+
+    private final Map<Class<?>, Map<Object, BaseModel>> models = new HashMap<>();
+
+    /**
+     * Get model
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param primaryKey Value of primary key
+     * @return Model or null when it isn't present
+     */
+    public <T extends BaseModel> T get(Class<T> modelClass, Object primaryKey) {
+        Map<Object, BaseModel> byKey = this.models.get(modelClass);
+        return byKey == null ? null : modelClass.cast(byKey.get(primaryKey));
+    }
+
+    /**
+     * Put model unless other instance with the same key is present
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param primaryKey Value of primary key, null keys are ignored
+     * @param model Model
+     * @return Instance kept in map
+     */
+    public <T extends BaseModel> T putIfAbsent(Class<T> modelClass, Object primaryKey, T model) {
+        if (primaryKey == null)
+            return model;
+        BaseModel present = this.models.computeIfAbsent(modelClass, k -> new HashMap<>()).putIfAbsent(primaryKey, model);
+        return present == null ? model : modelClass.cast(present);
+    }
+
+    /**
+     * Remove model
+     * @param modelClass Model class
+     * @param primaryKey Value of primary key
+     */
+    public void remove(Class<?> modelClass, Object primaryKey) {
+        Map<Object, BaseModel> byKey = this.models.get(modelClass);
+        if (byKey != null)
+            byKey.remove(primaryKey);
+    }
+
+    public void clear() {
+        this.models.clear();
+    }
+}
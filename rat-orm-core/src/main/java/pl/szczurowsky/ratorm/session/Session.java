@@ -0,0 +1,196 @@
+package pl.szczurowsky.ratorm.session;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.database.Database;
+import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+
+/**
+ * Unit of work on top of database. Keeps one instance per model class and primary key for its lifetime,
+ * so repeated fetches by primary key and foreign keys return the same instance.
+ * Models marked as dirty are saved on {@link #commit()} with one bulk write per model class.
+ * Session isn't thread-safe
+ */
+public class Session {
+
+    /**
+     * Database used by session
+     */
+    private final Database database;
+
+    /**
+     * Options passed to every save, e.g. MongoDB.session
+     */
+    private final Map<String, Object> options;
+
+    /**
+     * Tracked models
+     */
+    private final IdentityMap identityMap = new IdentityMap();
+
+    /**
+     * Models to be saved on commit by model class
+     */
+    private final Map<Class<? extends BaseModel>, Set<BaseModel>> dirty = new LinkedHashMap<>();
+
+    public Session(Database database) {
+        this(database, new HashMap<>());
+    }
+
+    /**
+     * Create session
+     * @param database Database
+     * @param options Options for saving
+     */
+    public Session(Database database, Map<String, Object> options) {
+        this.database = database;
+        this.options = options;
+    }
+
+    public IdentityMap getIdentityMap() {
+        return identityMap;
+    }
+
+    /**
+     * Fetch all objects which matches model class, already tracked instances are returned instead of fetched ones
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    public <T extends BaseModel> List<T> fetchAll(Class<T> modelClass) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        return this.database.fetchAll(modelClass, this.identityMap);
+    }
+
+    /**
+     * Fetch all objects which match provided conditions.
+     * Matching primary key of tracked model returns it without querying database
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param key Object key in database (field name)
+     * @param value Not serialized value of field
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    public <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        ModelFieldMetadata field = this.database.getModelMetadata(modelClass).getField(key);
+        if (field != null && field.isPrimaryKey()) {
+            T tracked = this.identityMap.get(modelClass, this.primaryKeyValue(field, value));
+            if (tracked != null)
+                return new ArrayList<>(Collections.singletonList(tracked));
+        }
+        return this.database.fetchMatching(modelClass, key, value, this.identityMap);
+    }
+
+    /**
+     * Fetch model by primary key
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param primaryKey Value of primary key
+     * @return Model or null when it doesn't exist
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     */
+    public <T extends BaseModel> T fetch(Class<T> modelClass, Object primaryKey) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        List<T> models = this.fetchMatching(modelClass, this.database.getModelMetadata(modelClass).getPrimaryKey().getName(), primaryKey);
+        return models.isEmpty() ? null : models.get(0);
+    }
+
+    /**
+     * Foreign keys pass primary key as serialized string
+     */
+    private Object primaryKeyValue(ModelFieldMetadata primaryKey, Object value) {
+        Serializer<?> serializer = primaryKey.getSerializer();
+        if (!(value instanceof String) || primaryKey.getType() == String.class || serializer == null)
+            return value;
+        try {
+            return serializer.deserialize((String) value);
+        } catch (Exception e) {
+            return value;
+        }
+    }
+
+    /**
+     * Track model created outside of session
+     * @param <T> Model class
+     * @param model Model
+     * @return Tracked instance, other instance when model with the same primary key is already tracked
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    public <T extends BaseModel> T track(T model) throws ModelNotInitializedException {
+        Class<T> modelClass = (Class<T>) model.getClass();
+        ModelFieldMetadata primaryKey = this.database.getModelMetadata(modelClass).getPrimaryKey();
+        return this.identityMap.putIfAbsent(modelClass, primaryKey.getAccessor().get(model), model);
+    }
+
+    /**
+     * Mark model to be saved on commit, model is tracked as well
+     * @param model Model
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    public void markDirty(BaseModel model) throws ModelNotInitializedException {
+        this.track(model);
+        this.dirty.computeIfAbsent(model.getClass(), k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(model);
+    }
+
+    /**
+     * Stop tracking model, pending save is dropped
+     * @param model Model
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    public void detach(BaseModel model) throws ModelNotInitializedException {
+        ModelFieldMetadata primaryKey = this.database.getModelMetadata(model.getClass()).getPrimaryKey();
+        this.identityMap.remove(model.getClass(), primaryKey.getAccessor().get(model));
+        Set<BaseModel> models = this.dirty.get(model.getClass());
+        if (models != null)
+            models.remove(model);
+    }
+
+    /**
+     * Save all dirty models, one bulk write per model class
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    public void commit() throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        Iterator<Map.Entry<Class<? extends BaseModel>, Set<BaseModel>>> iterator = this.dirty.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Class<? extends BaseModel>, Set<BaseModel>> entry = iterator.next();
+            if (!entry.getValue().isEmpty())
+                this.database.saveMany(entry.getValue(), (Class<BaseModel>) entry.getKey(), this.options);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Stop tracking all models, pending saves are dropped
+     */
+    public void clear() {
+        this.identityMap.clear();
+        this.dirty.clear();
+    }
+}
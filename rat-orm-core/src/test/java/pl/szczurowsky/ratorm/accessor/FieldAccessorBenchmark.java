@@ -0,0 +1,109 @@
+package pl.szczurowsky.ratorm.accessor;
+
+import java.lang.reflect.Field;
+
+/**
+ * Compares per-document cost of reading and writing model fields.
+ * Not a unit test, run manually: java -cp target/classes:target/test-classes pl.szczurowsky.ratorm.accessor.FieldAccessorBenchmark
+ */
+public class FieldAccessorBenchmark {
+
+    static class Document {
+        int id = 1;
+        long balance = 2L;
+        double ratio = 3.0;
+        boolean active = true;
+        int level = 4;
+        long lastSeen = 5L;
+        String name = "name";
+    }
+
+    private static final int DOCUMENTS = 1_000_000;
+    private static final int ROUNDS = 10;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        Field[] fields = Document.class.getDeclaredFields();
+        FieldAccessor[] reflection = new FieldAccessor[fields.length];
+        FieldAccessor[] methodHandles = new FieldAccessor[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            reflection[i] = FieldAccessorFactory.REFLECTION.create(fields[i]);
+            methodHandles[i] = FieldAccessorFactory.METHOD_HANDLES.create(fields[i]);
+        }
+        Document[] documents = new Document[1024];
+        for (int i = 0; i < documents.length; i++)
+            documents[i] = new Document();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            measure("Field.get/set + setAccessible per field", report, () -> legacy(fields, documents));
+            measure("ReflectionFieldAccessor (boxed)", report, () -> boxed(reflection, documents));
+            measure("MethodHandleFieldAccessor (boxed)", report, () -> boxed(methodHandles, documents));
+            measure("MethodHandleFieldAccessor (primitive)", report, () -> primitive(methodHandles, documents));
+        }
+        System.out.println("sink " + sink);
+    }
+
+    private interface Body {
+        void run() throws Exception;
+    }
+
+    private static void measure(String name, boolean report, Body body) throws Exception {
+        long start = System.nanoTime();
+        body.run();
+        long elapsed = System.nanoTime() - start;
+        if (report)
+            System.out.printf("%-42s %6.1f ns/document%n", name, (double) elapsed / DOCUMENTS);
+    }
+
+    private static void legacy(Field[] fields, Document[] documents) throws IllegalAccessException {
+        long sum = 0;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Document document = documents[i & 1023];
+            for (Field field : fields) {
+                field.setAccessible(true);
+                Object value = field.get(document);
+                field.set(document, value);
+                sum += value.hashCode();
+            }
+        }
+        sink += sum;
+    }
+
+    private static void boxed(FieldAccessor[] accessors, Document[] documents) {
+        long sum = 0;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Document document = documents[i & 1023];
+            for (FieldAccessor accessor : accessors) {
+                Object value = accessor.get(document);
+                accessor.set(document, value);
+                sum += value.hashCode();
+            }
+        }
+        sink += sum;
+    }
+
+    private static void primitive(FieldAccessor[] accessors, Document[] documents) {
+        long sum = 0;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Document document = documents[i & 1023];
+            int id = accessors[0].getInt(document);
+            accessors[0].setInt(document, id);
+            long balance = accessors[1].getLong(document);
+            accessors[1].setLong(document, balance);
+            double ratio = accessors[2].getDouble(document);
+            accessors[2].setDouble(document, ratio);
+            boolean active = accessors[3].getBoolean(document);
+            accessors[3].setBoolean(document, active);
+            int level = accessors[4].getInt(document);
+            accessors[4].setInt(document, level);
+            long lastSeen = accessors[5].getLong(document);
+            accessors[5].setLong(document, lastSeen);
+            Object name = accessors[6].get(document);
+            accessors[6].set(document, name);
+            sum += id + balance + (long) ratio + (active ? 1 : 0) + level + lastSeen + name.hashCode();
+        }
+        sink += sum;
+    }
+}
@@ -0,0 +1,69 @@
+package pl.szczurowsky.ratorm.accessor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FieldAccessorTest {
+
+    static class TestModel {
+        private int id = 1;
+        private long balance = 2L;
+        private double ratio = 3.5;
+        private boolean active = true;
+        private short level = 4;
+        private byte flags = 5;
+        private float scale = 6.5f;
+        private String name = "name";
+        private final String code = "code";
+    }
+
+    private FieldAccessor accessor(String name) throws NoSuchFieldException {
+        return FieldAccessorFactory.METHOD_HANDLES.create(TestModel.class.getDeclaredField(name));
+    }
+
+    @Test
+    public void testPrimitiveAccess() throws NoSuchFieldException {
+        TestModel model = new TestModel();
+        accessor("id").setInt(model, 10);
+        accessor("balance").setLong(model, 20L);
+        accessor("ratio").setDouble(model, 30.5);
+        accessor("active").setBoolean(model, false);
+        Assertions.assertEquals(10, accessor("id").getInt(model));
+        Assertions.assertEquals(20L, accessor("balance").getLong(model));
+        Assertions.assertEquals(30.5, accessor("ratio").getDouble(model));
+        Assertions.assertFalse(accessor("active").getBoolean(model));
+    }
+
+    @Test
+    public void testNarrowingSetters() throws NoSuchFieldException {
+        TestModel model = new TestModel();
+        accessor("level").setInt(model, 40);
+        accessor("flags").setInt(model, 50);
+        accessor("scale").setDouble(model, 60.5);
+        Assertions.assertEquals((short) 40, accessor("level").get(model));
+        Assertions.assertEquals((byte) 50, accessor("flags").get(model));
+        Assertions.assertEquals(60.5f, accessor("scale").get(model));
+        Assertions.assertEquals(40, accessor("level").getInt(model));
+        Assertions.assertEquals(50, accessor("flags").getInt(model));
+        // Out of range values are narrowed like by cast
+        accessor("flags").setInt(model, 300);
+        Assertions.assertEquals((byte) 300, model.flags);
+    }
+
+    @Test
+    public void testWideningAndBoxedAccess() throws NoSuchFieldException {
+        TestModel model = new TestModel();
+        Assertions.assertEquals(4L, accessor("level").getLong(model));
+        Assertions.assertEquals(1.0, accessor("id").getDouble(model));
+        accessor("name").set(model, "other");
+        Assertions.assertEquals("other", accessor("name").get(model));
+        Assertions.assertEquals(1, accessor("id").get(model));
+    }
+
+    @Test
+    public void testFinalFieldIsReadOnly() throws NoSuchFieldException {
+        TestModel model = new TestModel();
+        Assertions.assertEquals("code", accessor("code").get(model));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> accessor("code").set(model, "other"));
+    }
+}
@@ -0,0 +1,39 @@
+package pl.szczurowsky.ratorm.cursor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ModelCursorTest {
+
+    @Test
+    public void testStreamClosesCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Iterator<String> iterator = Arrays.asList("a", "b").iterator();
+        ModelCursor<String> cursor = new ModelCursor<String>() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return iterator.next();
+            }
+        };
+        try (Stream<String> stream = cursor.stream()) {
+            Assertions.assertEquals(Arrays.asList("a", "b"), stream.collect(Collectors.toList()));
+        }
+        Assertions.assertTrue(closed.get());
+    }
+}
@@ -0,0 +1,202 @@
+package pl.szczurowsky.ratorm.metadata;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Indexed;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.enums.FieldKind;
+import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.serializers.SerializerRegistry;
+import pl.szczurowsky.ratorm.serializers.basic.IntegerSerializer;
+import pl.szczurowsky.ratorm.serializers.basic.StringSerializer;
+
+import java.util.List;
+import java.util.Map;
+
+public class ModelMetadataTest {
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(name = "user_name")
+        String username;
+        @ModelField
+        List<String> tags;
+        @ModelField
+        Map<String, Integer> counters;
+        String notStored;
+    }
+
+    @Model(tableName = "test")
+    static class TwoKeysModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(isPrimaryKey = true)
+        int secondId;
+    }
+
+    @Model(tableName = "test")
+    static class UnknownTypeModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField
+        Thread thread;
+    }
+
+    @Model(tableName = "test")
+    static class ImmutableModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        private final int id;
+        @ModelField
+        private final String username;
+
+        ImmutableModel(int id, String username) {
+            this.id = id;
+            this.username = username;
+        }
+    }
+
+    @Model(tableName = "test")
+    static class FinalFieldModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        private final int id = 0;
+    }
+
+    @Model(tableName = "test")
+    static class LazyModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(isForeignKey = true)
+        ForeignKeyReference<LazyModel> parent;
+        @ModelField(isForeignKey = true)
+        TestModel eager;
+    }
+
+    @Model(tableName = "test")
+    static class IndexedModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(name = "user_name")
+        @Indexed(unique = true)
+        String username;
+        @ModelField
+        @Indexed(name = "group_rank", order = 1, descending = true)
+        int rank;
+        @ModelField
+        @Indexed(name = "group_rank")
+        String group;
+    }
+
+    private SerializerRegistry serializers() {
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(int.class, new IntegerSerializer());
+        serializers.register(String.class, new StringSerializer());
+        return serializers;
+    }
+
+    private <T extends BaseModel> ModelMetadata<T> metadata(Class<T> modelClass) throws Exception {
+        return ModelMetadata.of(modelClass, serializers(), FieldAccessorFactory.METHOD_HANDLES, null);
+    }
+
+    @Test
+    public void testMetadataResolution() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(TestModel.class);
+        Assertions.assertEquals("test", metadata.getTableName());
+        Assertions.assertEquals(4, metadata.getFields().size());
+        Assertions.assertEquals("id", metadata.getPrimaryKey().getColumnName());
+        Assertions.assertEquals("user_name", metadata.getField("username").getColumnName());
+        Assertions.assertSame(metadata.getField("username"), metadata.getField("user_name"));
+        Assertions.assertEquals(FieldKind.COLLECTION, metadata.getField("tags").getKind());
+        Assertions.assertEquals(FieldKind.MAP, metadata.getField("counters").getKind());
+        Assertions.assertEquals(String.class, metadata.getField("tags").getElementType());
+        Assertions.assertEquals(String.class, metadata.getField("counters").getKeyType());
+        // No serializer registered for Integer
+        Assertions.assertNull(metadata.getField("counters").getElementType());
+        Assertions.assertNull(metadata.getField("notStored"));
+    }
+
+    @Test
+    public void testMoreThanOnePrimaryKey() {
+        Assertions.assertThrows(MoreThanOnePrimaryKeyException.class, () -> metadata(TwoKeysModel.class));
+    }
+
+    @Test
+    public void testMissingSerializerFailsEarly() {
+        Assertions.assertThrows(NoSerializerFoundException.class, () -> metadata(UnknownTypeModel.class));
+    }
+
+    @Test
+    public void testNoArgsInstantiator() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(TestModel.class);
+        Assertions.assertFalse(metadata.getInstantiator().isConstructorBound());
+        TestModel model = metadata.getInstantiator().newInstance(new Object[]{5, "name", null, null});
+        Assertions.assertEquals(5, model.id);
+        Assertions.assertEquals("name", model.username);
+    }
+
+    @Test
+    public void testConstructorBoundInstantiator() throws Exception {
+        ModelMetadata<ImmutableModel> metadata = metadata(ImmutableModel.class);
+        Assertions.assertTrue(metadata.getInstantiator().isConstructorBound());
+        ImmutableModel model = metadata.getInstantiator().newInstance(new Object[]{5, "name"});
+        Assertions.assertEquals(5, model.id);
+        Assertions.assertEquals("name", model.username);
+        ImmutableModel missing = metadata.getInstantiator().newInstance(new Object[]{null, null});
+        Assertions.assertEquals(0, missing.id);
+        Assertions.assertNull(missing.username);
+    }
+
+    @Test
+    public void testLazyForeignKey() throws Exception {
+        ModelMetadata<LazyModel> metadata = metadata(LazyModel.class);
+        Assertions.assertTrue(metadata.getField("parent").isLazy());
+        Assertions.assertEquals(LazyModel.class, metadata.getField("parent").getReferencedType());
+        Assertions.assertFalse(metadata.getField("eager").isLazy());
+        Assertions.assertEquals(TestModel.class, metadata.getField("eager").getReferencedType());
+        LazyModel model = new LazyModel();
+        ForeignKeyReference<LazyModel> reference = ForeignKeyReference.of(model);
+        Assertions.assertTrue(reference.isLoaded());
+        Assertions.assertSame(model, reference.get());
+    }
+
+    @Test
+    public void testFinalFieldsWithoutConstructor() {
+        Assertions.assertThrows(NoModelConstructorException.class, () -> metadata(FinalFieldModel.class));
+    }
+
+    @Test
+    public void testIndexes() throws Exception {
+        List<IndexMetadata> indexes = metadata(IndexedModel.class).getIndexes();
+        Assertions.assertEquals(2, indexes.size());
+        Assertions.assertEquals("user_name", indexes.get(0).getName());
+        Assertions.assertTrue(indexes.get(0).isUnique());
+        IndexMetadata compound = indexes.get(1);
+        Assertions.assertEquals("group_rank", compound.getName());
+        Assertions.assertEquals("group", compound.getFields().get(0).getColumnName());
+        Assertions.assertEquals("rank", compound.getFields().get(1).getColumnName());
+        Assertions.assertFalse(compound.isDescending(0));
+        Assertions.assertTrue(compound.isDescending(1));
+        Assertions.assertEquals(-1, compound.getExpireAfterSeconds());
+    }
+
+    @Test
+    public void testWithColumnName() throws Exception {
+        ModelMetadata<IndexedModel> metadata = metadata(IndexedModel.class);
+        ModelMetadata<IndexedModel> renamed = metadata.withColumnName("id", "_id");
+        Assertions.assertEquals("id", metadata.getPrimaryKey().getColumnName());
+        Assertions.assertEquals("_id", renamed.getPrimaryKey().getColumnName());
+        Assertions.assertSame(renamed.getPrimaryKey(), renamed.getField("id"));
+        Assertions.assertSame(renamed.getPrimaryKey(), renamed.getField("_id"));
+        Assertions.assertSame(metadata.getField("username"), renamed.getField("user_name"));
+        Assertions.assertEquals(2, renamed.getIndexes().size());
+        renamed = metadata.withColumnName("user_name", "login");
+        Assertions.assertEquals("login", renamed.getIndexes().get(0).getFields().get(0).getColumnName());
+        Assertions.assertNull(renamed.getField("user_name"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> metadata.withColumnName("missing", "_id"));
+    }
+}
@@ -0,0 +1,63 @@
+package pl.szczurowsky.ratorm.projection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.serializers.SerializerRegistry;
+import pl.szczurowsky.ratorm.serializers.basic.IntegerSerializer;
+import pl.szczurowsky.ratorm.serializers.basic.StringSerializer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ProjectionTest {
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(name = "user_name")
+        String username;
+        @ModelField
+        String description;
+        @ModelField
+        int age;
+    }
+
+    interface NameOnly {
+        String getUsername();
+
+        int getUnknown();
+    }
+
+    private ModelMetadata<TestModel> metadata() throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException, NoSerializerFoundException, NoModelConstructorException {
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(int.class, new IntegerSerializer());
+        serializers.register(String.class, new StringSerializer());
+        return ModelMetadata.of(TestModel.class, serializers, FieldAccessorFactory.METHOD_HANDLES, null);
+    }
+
+    private static List<String> columns(List<ModelFieldMetadata> fields) {
+        return fields.stream().map(ModelFieldMetadata::getColumnName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testNamedFields() throws Exception {
+        List<ModelFieldMetadata> fields = Projection.of("age", "user_name").resolve(metadata());
+        Assertions.assertEquals(Arrays.asList("id", "user_name", "age"), columns(fields));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Projection.of("missing").resolve(metadata()));
+    }
+
+    @Test
+    public void testProjectionInterface() throws Exception {
+        List<ModelFieldMetadata> fields = Projection.of(NameOnly.class).resolve(metadata());
+        Assertions.assertEquals(Arrays.asList("id", "user_name"), columns(fields));
+    }
+}
@@ -0,0 +1,107 @@
+package pl.szczurowsky.ratorm.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.serializers.SerializerRegistry;
+import pl.szczurowsky.ratorm.serializers.basic.IntegerSerializer;
+import pl.szczurowsky.ratorm.serializers.basic.StringSerializer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CompiledQueryTest {
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(name = "user_name")
+        String username;
+        @ModelField
+        Integer age;
+
+        TestModel() {
+        }
+
+        TestModel(int id, String username, Integer age) {
+            this.id = id;
+            this.username = username;
+            this.age = age;
+        }
+    }
+
+    private ModelMetadata<TestModel> metadata() throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException, NoSerializerFoundException, NoModelConstructorException {
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(int.class, new IntegerSerializer());
+        serializers.register(Integer.class, new IntegerSerializer());
+        serializers.register(String.class, new StringSerializer());
+        return ModelMetadata.of(TestModel.class, serializers, FieldAccessorFactory.METHOD_HANDLES, null);
+    }
+
+    private static Stream<TestModel> models() {
+        return Stream.of(
+                new TestModel(1, "a", 30),
+                new TestModel(2, "b", 15),
+                new TestModel(3, "c", null),
+                new TestModel(4, "d", 45)
+        );
+    }
+
+    private static List<Integer> ids(List<TestModel> models) {
+        return models.stream().map(model -> model.id).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testCompoundCondition() throws Exception {
+        Query<TestModel> query = Query.builder(TestModel.class)
+                .where(Condition.or(
+                        Condition.greaterThanEquals("age", 30),
+                        Condition.in("user_name", "b", "c")
+                ))
+                .where(Condition.notEquals("id", "4"))
+                .build();
+        Assertions.assertEquals(Arrays.asList(1, 2, 3), ids(CompiledQuery.compile(query, metadata()).apply(models())));
+    }
+
+    @Test
+    public void testMissingValueOutOfRange() throws Exception {
+        Query<TestModel> query = Query.builder(TestModel.class)
+                .where(Condition.lessThan("age", 100L))
+                .build();
+        Assertions.assertEquals(Arrays.asList(1, 2, 4), ids(CompiledQuery.compile(query, metadata()).apply(models())));
+    }
+
+    @Test
+    public void testRangeOfOtherTypeMatchesNothing() throws Exception {
+        Query<TestModel> query = Query.builder(TestModel.class)
+                .where(Condition.or(Condition.greaterThan("user_name", 5), Condition.lessThan("age", "abc")))
+                .build();
+        Assertions.assertTrue(CompiledQuery.compile(query, metadata()).apply(models()).isEmpty());
+    }
+
+    @Test
+    public void testSortAndLimit() throws Exception {
+        Query<TestModel> query = Query.builder(TestModel.class)
+                .where(Condition.notIn("id", 2))
+                .sortDescending("age")
+                .limit(2)
+                .build();
+        Assertions.assertEquals(Arrays.asList(4, 1), ids(CompiledQuery.compile(query, metadata()).apply(models())));
+    }
+
+    @Test
+    public void testUnknownField() {
+        Query<TestModel> query = Query.builder(TestModel.class)
+                .where(Condition.equals("missing", 1))
+                .build();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompiledQuery.compile(query, metadata()));
+    }
+}
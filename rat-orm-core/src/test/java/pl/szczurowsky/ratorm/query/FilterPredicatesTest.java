@@ -0,0 +1,67 @@
+package pl.szczurowsky.ratorm.query;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.enums.FilterExpression;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.function.Predicate;
+
+public class FilterPredicatesTest {
+
+    static class TestModel {
+        int count;
+        Double ratio;
+        String name;
+        BigInteger big;
+
+        TestModel(int count, Double ratio, String name, BigInteger big) {
+            this.count = count;
+            this.ratio = ratio;
+            this.name = name;
+            this.big = big;
+        }
+    }
+
+    private static Predicate<TestModel> compile(String name, FilterExpression expression, Object value) throws NoSuchFieldException {
+        Field field = TestModel.class.getDeclaredField(name);
+        field.setAccessible(true);
+        FieldAccessor accessor = FieldAccessorFactory.METHOD_HANDLES.create(field);
+        return FilterPredicates.compile(accessor, field.getType(), expression, value);
+    }
+
+    @Test
+    public void testPrimitiveField() throws NoSuchFieldException {
+        TestModel model = new TestModel(10, null, "10", null);
+        Assertions.assertTrue(compile("count", FilterExpression.GREATER_THAN, 9L).test(model));
+        Assertions.assertTrue(compile("count", FilterExpression.EQUALS, 10L).test(model));
+        Assertions.assertTrue(compile("count", FilterExpression.LESS_THAN_EQUALS, "10").test(model));
+        Assertions.assertFalse(compile("count", FilterExpression.LESS_THAN, "abc").test(model));
+    }
+
+    @Test
+    public void testNullableFields() throws NoSuchFieldException {
+        TestModel empty = new TestModel(0, null, null, null);
+        TestModel filled = new TestModel(0, 0.5, "b", BigInteger.TEN.pow(30));
+        Assertions.assertFalse(compile("ratio", FilterExpression.GREATER_THAN_EQUALS, 0).test(empty));
+        Assertions.assertTrue(compile("ratio", FilterExpression.LESS_THAN, 1).test(filled));
+        Assertions.assertTrue(compile("big", FilterExpression.GREATER_THAN, Long.MAX_VALUE).test(filled));
+        Assertions.assertFalse(compile("big", FilterExpression.GREATER_THAN, Long.MAX_VALUE).test(empty));
+        Assertions.assertFalse(compile("name", FilterExpression.NOT_EQUALS, "a").test(empty));
+    }
+
+    @Test
+    public void testStringField() throws NoSuchFieldException {
+        TestModel model = new TestModel(0, null, "15", null);
+        Assertions.assertTrue(compile("name", FilterExpression.GREATER_THAN, 9).test(model));
+        Assertions.assertTrue(compile("name", FilterExpression.GREATER_THAN, "9").test(model));
+        Assertions.assertFalse(compile("name", FilterExpression.LESS_THAN, "9").test(model));
+        Assertions.assertTrue(compile("name", FilterExpression.EQUALS, "15").test(model));
+        TestModel text = new TestModel(0, null, "b", null);
+        Assertions.assertFalse(compile("name", FilterExpression.GREATER_THAN, "9").test(text));
+        Assertions.assertTrue(compile("name", FilterExpression.GREATER_THAN, "a").test(text));
+    }
+}
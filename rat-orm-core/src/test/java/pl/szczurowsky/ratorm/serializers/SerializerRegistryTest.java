@@ -0,0 +1,90 @@
+package pl.szczurowsky.ratorm.serializers;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.serializers.basic.IntegerSerializer;
+import pl.szczurowsky.ratorm.serializers.basic.StringSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.StringStreamSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.ValueReader;
+import pl.szczurowsky.ratorm.serializers.stream.ValueWriter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+
+public class SerializerRegistryTest {
+
+    enum TestEnum {
+        A {
+            @Override
+            public String toString() {
+                return "a";
+            }
+        },
+        B
+    }
+
+    static class Parent {
+    }
+
+    static class Child extends Parent implements Serializable {
+    }
+
+    @Test
+    public void testHierarchyResolution() {
+        SerializerRegistry registry = new SerializerRegistry();
+        EnumSerializer enumSerializer = new EnumSerializer();
+        StringSerializer stringSerializer = new StringSerializer();
+        registry.register(Enum.class, enumSerializer);
+        registry.register(Collection.class, stringSerializer);
+        Assertions.assertSame(enumSerializer, registry.get(TestEnum.A.getClass()));
+        Assertions.assertSame(enumSerializer, registry.get(TestEnum.class));
+        Assertions.assertSame(stringSerializer, registry.get(ArrayList.class));
+    }
+
+    @Test
+    public void testSuperclassBeforeInterface() {
+        SerializerRegistry registry = new SerializerRegistry();
+        StringSerializer parentSerializer = new StringSerializer();
+        registry.register(Serializable.class, new StringSerializer());
+        registry.register(Parent.class, parentSerializer);
+        Assertions.assertSame(parentSerializer, registry.get(Child.class));
+    }
+
+    @Test
+    public void testRegistrationInvalidatesMissingSerializer() {
+        SerializerRegistry registry = new SerializerRegistry();
+        Assertions.assertNull(registry.get(int.class));
+        IntegerSerializer serializer = new IntegerSerializer();
+        registry.register(int.class, serializer);
+        Assertions.assertSame(serializer, registry.get(int.class));
+    }
+
+    @Test
+    public void testStreamSerializerResolution() {
+        SerializerRegistry registry = new SerializerRegistry();
+        IntegerSerializer serializer = new IntegerSerializer();
+        registry.register(Integer.class, serializer);
+        StreamSerializer<?> adapter = registry.getStream(Integer.class);
+        Assertions.assertTrue(adapter instanceof StringStreamSerializer);
+        Assertions.assertSame(serializer, ((StringStreamSerializer<?>) adapter).getSerializer());
+        Assertions.assertNull(registry.getStream(Parent.class));
+
+        StreamSerializer<Parent> streamSerializer = new StreamSerializer<Parent>() {
+            @Override
+            public void write(ValueWriter writer, Parent providedObject) {
+                writer.writeNull();
+            }
+
+            @Override
+            public Parent read(ValueReader reader) {
+                reader.readNull();
+                return null;
+            }
+        };
+        registry.registerStream(Parent.class, streamSerializer);
+        Assertions.assertSame(streamSerializer, registry.getStream(Child.class));
+        Assertions.assertNull(registry.get(Child.class));
+    }
+}
@@ -2,8 +2,18 @@ package pl.szczurowsky.ratorm.serializers;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
 import pl.szczurowsky.ratorm.exception.SerializerException;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
 import pl.szczurowsky.ratorm.serializers.basic.*;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.ValueReader;
+import pl.szczurowsky.ratorm.serializers.stream.ValueWriter;
 
 import java.math.BigInteger;
 import java.util.*;
@@ -14,6 +24,29 @@ public class SerializerTest {
         A, B
     }
 
+    @Model(tableName = "test")
+    static class ReferencedModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+    }
+
+    static class Key {
+    }
+
+    @Model(tableName = "test")
+    static class StreamKeyModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        Key id;
+    }
+
+    public static class CountingSerializer extends StringSerializer {
+        static int instances;
+
+        public CountingSerializer() {
+            instances++;
+        }
+    }
+
     @Test
     public void testBooleanSerialization() {
         BooleanSerializer serializer = new BooleanSerializer();
@@ -86,6 +119,13 @@ public class SerializerTest {
         Assertions.assertEquals(bi, serializer.deserialize(serialized));
     }
 
+    @Test
+    public void testBigIntOutOfLongRange() {
+        BigIntSerializer serializer = new BigIntSerializer();
+        BigInteger bi = new BigInteger("123456789012345678901234567890123456789");
+        Assertions.assertEquals(bi, serializer.deserialize(serializer.serialize(bi)));
+    }
+
     @Test
     public void testCollectionSerialization() throws SerializerException {
         CollectionSerializer serializer = new CollectionSerializer();
@@ -96,6 +136,17 @@ public class SerializerTest {
         Assertions.assertEquals(list, serializer.deserializeCollection(serialized, serializers));
     }
 
+    @Test
+    public void testDeprecatedValueSerialization() throws NoSerializerFoundException {
+        HashMap<Class<?>, Class<? extends Serializer>> serializers = new HashMap<>();
+        serializers.put(Integer.class, IntegerSerializer.class);
+        MapSerializer serializer = new MapSerializer();
+        Assertions.assertEquals("5", serializer.serializeValue(Integer.class, serializers, 5));
+        Assertions.assertEquals(5, serializer.deserializeValue(Integer.class, serializers, "5"));
+        Assertions.assertEquals(5, new ForeignKeySerializer().deserializeValue(Integer.class, serializers, 5));
+        Assertions.assertThrows(NoSerializerFoundException.class, () -> new CollectionSerializer().serializeValue(String.class, serializers, "rat"));
+    }
+
     @Test
     public void testEnumSerialization() throws ClassNotFoundException, SerializerException {
         EnumSerializer serializer = new EnumSerializer();
@@ -105,6 +156,58 @@ public class SerializerTest {
         Assertions.assertNotEquals(TestEnum.B, serializer.deserialize(serialized));
     }
 
+    @Test
+    public void testTypedEnumSerialization() throws ClassNotFoundException, SerializerException {
+        Serializer<Enum> serializer = new EnumSerializer().forType(TestEnum.class);
+        Assertions.assertEquals("A", serializer.serialize(TestEnum.A));
+        Assertions.assertEquals(TestEnum.A, serializer.deserialize("A"));
+        Assertions.assertEquals(TestEnum.B, serializer.deserialize(new EnumSerializer().serialize(TestEnum.B)));
+    }
+
+    @Test
+    public void testTypedCollectionSerialization() throws SerializerException {
+        CollectionSerializer serializer = new CollectionSerializer();
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(Enum.class, new EnumSerializer());
+        List<TestEnum> list = Arrays.asList(TestEnum.A, TestEnum.B);
+        String serialized = serializer.serializeCollection(list, TestEnum.class, serializers);
+        Assertions.assertEquals("{\"$#Values#$\":[\"A\",\"B\"]}", serialized);
+        Assertions.assertEquals(list, serializer.deserializeCollection(serialized, TestEnum.class, serializers));
+        String legacy = serializer.serializeCollection(list, serializers);
+        Assertions.assertEquals(list, serializer.deserializeCollection(legacy, TestEnum.class, serializers));
+        String legacyEmpty = serializer.serializeCollection(Collections.emptyList(), serializers);
+        Assertions.assertTrue(serializer.deserializeCollection(legacyEmpty, TestEnum.class, serializers).isEmpty());
+    }
+
+    @Test
+    public void testTypedCollectionEndingWithClassName() throws SerializerException {
+        CollectionSerializer serializer = new CollectionSerializer();
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(String.class, new StringSerializer());
+        List<String> list = Arrays.asList("a", "java.lang.String");
+        String serialized = serializer.serializeCollection(list, String.class, serializers);
+        Assertions.assertEquals(list, serializer.deserializeCollection(serialized, String.class, serializers));
+        List<String> objectMarker = Arrays.asList("a", "java.lang.Object");
+        Assertions.assertEquals(objectMarker, serializer.deserializeCollection(serializer.serializeCollection(objectMarker, String.class, serializers), String.class, serializers));
+        String legacy = serializer.serializeCollection(list, serializers);
+        Assertions.assertEquals(list, serializer.deserializeCollection(legacy, String.class, serializers));
+    }
+
+    @Test
+    public void testTypedMapSerialization() throws SerializerException {
+        MapSerializer serializer = new MapSerializer();
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(String.class, new StringSerializer());
+        serializers.register(Integer.class, new IntegerSerializer());
+        Map<String, Integer> map = new HashMap<>();
+        map.put("Test", 1);
+        String serialized = serializer.serializeMap(map, String.class, Integer.class, serializers);
+        Assertions.assertFalse(serialized.contains("$#MapKey#$"));
+        Assertions.assertEquals(map, serializer.deserializeMap(serialized, String.class, Integer.class, serializers));
+        String legacy = serializer.serializeMap(map, serializers);
+        Assertions.assertEquals(map, serializer.deserializeMap(legacy, String.class, Integer.class, serializers));
+    }
+
     @Test
     public void testMapSerialization() throws SerializerException {
         MapSerializer serializer = new MapSerializer();
@@ -119,6 +222,54 @@ public class SerializerTest {
         Assertions.assertEquals(map2, map);
     }
 
+    @Test
+    public void testForeignKeySerialization() throws Exception {
+        ForeignKeySerializer serializer = new ForeignKeySerializer();
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.register(int.class, new IntegerSerializer());
+        ReferencedModel model = new ReferencedModel();
+        model.id = 5;
+        String expected = "id" + ForeignKeyReference.SEPARATOR + "5";
+        Assertions.assertEquals(expected, serializer.serializeForeignKey(ReferencedModel.class, model, serializers));
+        ModelMetadata<ReferencedModel> metadata = ModelMetadata.of(ReferencedModel.class, serializers, FieldAccessorFactory.REFLECTION, null);
+        Assertions.assertEquals(expected, serializer.serializeForeignKey(metadata, model));
+    }
+
+    @Test
+    public void testForeignKeyWithStreamingKey() throws Exception {
+        SerializerRegistry serializers = new SerializerRegistry();
+        serializers.registerStream(Key.class, new StreamSerializer<Key>() {
+            @Override
+            public void write(ValueWriter writer, Key providedObject) {
+                writer.writeNull();
+            }
+
+            @Override
+            public Key read(ValueReader reader) {
+                reader.readNull();
+                return null;
+            }
+        });
+        ModelMetadata<StreamKeyModel> metadata = ModelMetadata.of(StreamKeyModel.class, serializers, FieldAccessorFactory.REFLECTION, null);
+        Assertions.assertThrows(SerializerException.class, () -> new ForeignKeySerializer().serializeForeignKey(metadata, new StreamKeyModel()));
+    }
+
+    @Test
+    public void testDeprecatedMethodsReuseRegistry() throws SerializerException {
+        CollectionSerializer serializer = new CollectionSerializer();
+        HashMap<Class<?>, Class<? extends Serializer>> serializers = new HashMap<>();
+        serializers.put(String.class, CountingSerializer.class);
+        CountingSerializer.instances = 0;
+        List<String> list = Arrays.asList("a", "b");
+        for (int i = 0; i < 3; i++)
+            Assertions.assertEquals(list, serializer.deserializeCollection(serializer.serializeCollection(list, serializers), serializers));
+        Assertions.assertEquals(1, CountingSerializer.instances);
+        // Changed map creates new registry
+        serializers.put(Integer.class, IntegerSerializer.class);
+        serializer.serializeCollection(list, serializers);
+        Assertions.assertEquals(2, CountingSerializer.instances);
+    }
+
     @Test
     public void testUuidSerialization() {
         UuidSerializer serializer = new UuidSerializer();
@@ -0,0 +1,39 @@
+package pl.szczurowsky.ratorm.session;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+
+public class IdentityMapTest {
+
+    static class TestModel extends BaseModel {
+    }
+
+    static class OtherModel extends BaseModel {
+    }
+
+    @Test
+    public void testFirstInstanceWins() {
+        IdentityMap identityMap = new IdentityMap();
+        TestModel first = new TestModel();
+        TestModel second = new TestModel();
+        Assertions.assertSame(first, identityMap.putIfAbsent(TestModel.class, 1, first));
+        Assertions.assertSame(first, identityMap.putIfAbsent(TestModel.class, 1, second));
+        Assertions.assertSame(first, identityMap.get(TestModel.class, 1));
+        Assertions.assertNull(identityMap.get(OtherModel.class, 1));
+    }
+
+    @Test
+    public void testNullKeyAndRemoval() {
+        IdentityMap identityMap = new IdentityMap();
+        TestModel model = new TestModel();
+        Assertions.assertSame(model, identityMap.putIfAbsent(TestModel.class, null, model));
+        Assertions.assertNull(identityMap.get(TestModel.class, null));
+        identityMap.putIfAbsent(TestModel.class, 1, model);
+        identityMap.remove(TestModel.class, 1);
+        Assertions.assertNull(identityMap.get(TestModel.class, 1));
+        identityMap.putIfAbsent(TestModel.class, 2, model);
+        identityMap.clear();
+        Assertions.assertNull(identityMap.get(TestModel.class, 2));
+    }
+}
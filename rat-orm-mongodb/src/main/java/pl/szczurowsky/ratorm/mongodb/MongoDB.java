@@ -7,28 +7,82 @@ import com.mongodb.ServerAddress;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.WriteModel;
-import org.bson.Document;
+import org.bson.*;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
 import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
 import pl.szczurowsky.ratorm.annotation.Model;
-import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.cursor.ModelCursor;
 import pl.szczurowsky.ratorm.database.BasicDatabase;
+import pl.szczurowsky.ratorm.enums.FieldKind;
+import pl.szczurowsky.ratorm.enums.FilterExpression;
+import pl.szczurowsky.ratorm.enums.QueryOperator;
 import pl.szczurowsky.ratorm.exception.*;
+import pl.szczurowsky.ratorm.metadata.IndexMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.mongodb.codec.BsonFieldCodec;
+import pl.szczurowsky.ratorm.mongodb.codec.FetchContext;
+import pl.szczurowsky.ratorm.mongodb.codec.MongoModelCodec;
+import pl.szczurowsky.ratorm.mongodb.codec.MongoModelCodecProvider;
+import pl.szczurowsky.ratorm.mongodb.enums.StorageMode;
+import pl.szczurowsky.ratorm.pagination.Page;
+import pl.szczurowsky.ratorm.projection.Projection;
+import pl.szczurowsky.ratorm.query.Condition;
+import pl.szczurowsky.ratorm.query.Query;
+import pl.szczurowsky.ratorm.query.Sort;
 import pl.szczurowsky.ratorm.serializers.CollectionSerializer;
 import pl.szczurowsky.ratorm.serializers.ForeignKeySerializer;
 import pl.szczurowsky.ratorm.serializers.MapSerializer;
-import pl.szczurowsky.ratorm.serializers.Serializer;
+import pl.szczurowsky.ratorm.session.IdentityMap;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 
 public class MongoDB extends BasicDatabase {
 
+    /**
+     * Prefix of indexes managed by RatORM
+     */
+    private static final String INDEX_PREFIX = "ratorm_";
+
+    /**
+     * Identifier of document, primary key column when primary key is stored as identifier
+     */
+    public static final String ID_COLUMN = "_id";
+
+    /**
+     * Number of documents rewritten by one bulk write while moving primary keys to identifiers
+     */
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
     /**
      * MongoDB client
      */
@@ -40,8 +94,163 @@ public class MongoDB extends BasicDatabase {
     /**
      * List of initialized models
      */
-    private final HashMap<Class<? extends BaseModel>, MongoCollection<Document>> collections = new HashMap<>();
+    private final HashMap<Class<? extends BaseModel>, MongoCollection<? extends BaseModel>> collections = new HashMap<>();
+    /**
+     * How values are written to documents
+     */
+    private StorageMode storageMode = StorageMode.STRINGS;
+    /**
+     * Writer and reader of field values
+     */
+    private final BsonFieldCodec fieldCodec = new BsonFieldCodec(this);
+    /**
+     * Codecs of initialized models, registered in codec registry of database
+     */
+    private final MongoModelCodecProvider codecProvider = new MongoModelCodecProvider(fieldCodec);
+    /**
+     * Maximum number of primary keys in one query resolving foreign keys
+     */
+    private int foreignKeyBatchSize = 500;
+
+    /**
+     * Number of documents decoded by one task of decode pool, 0 when documents are decoded while reading
+     */
+    private int decodeChunkSize;
+
+    /**
+     * Keep models decoded in parallel in order of documents
+     */
+    private boolean decodeOrdered = true;
+
+    private ExecutorService decodePool = ForkJoinPool.commonPool();
+
+    /**
+     * Options of saves, models are inserted when document with their key doesn't exist
+     */
+    private static final UpdateOptions UPSERT = new UpdateOptions().upsert(true);
+
+    /**
+     * Thread decodes chunk on decode pool, fetches of foreign keys started by it are decoded inline
+     * so that pool threads never wait for other tasks of pool
+     */
+    private static final ThreadLocal<Boolean> DECODING = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Store primary keys of models initialized later as identifiers of documents
+     */
+    private boolean primaryKeyAsId;
+
+    /**
+     * Columns of primary keys before they were stored as identifiers, by model class
+     */
+    private final Map<Class<? extends BaseModel>, String> legacyKeyColumns = new HashMap<>();
+
+    /**
+     * Queue fields missing in read documents to be written back
+     */
+    private boolean writeOnRead = true;
+
+    private final SchemaBackfill backfill = new SchemaBackfill(this);
+
+    /**
+     * Filters and sorts translated from queries, by identity of query
+     */
+    private final Map<Query<?>, Bson[]> translatedQueries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Get storage mode used while saving models
+     * @return Storage mode
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * Set storage mode used while saving models. Documents in every mode are readable,
+     * documents saved in older mode are converted on next save
+     * @param storageMode Storage mode
+     */
+    public void setStorageMode(StorageMode storageMode) {
+        this.storageMode = storageMode;
+        // Translated filters depend on stored form of values
+        this.translatedQueries.clear();
+    }
 
+    /**
+     * Store primary key as identifier of document instead of separate column, lookups by primary key use index of identifier.
+     * Identifier is stored natively in every storage mode. Applies to models initialized after call,
+     * documents with primary key in old column are moved by {@link #moveKeysToId(Class)}. Until then they are read
+     * with primary key from old column, but lookups by primary key don't find them and saves create second document,
+     * so move them before first use
+     * @param primaryKeyAsId Store primary key as identifier
+     */
+    public void setPrimaryKeyAsId(boolean primaryKeyAsId) {
+        this.primaryKeyAsId = primaryKeyAsId;
+    }
+
+    /**
+     * Write fields missing in read documents back to database, in bulk off the read path. Disabled for read-only
+     * deployments, documents can be completed with {@link #migrate(Class)} then
+     * @param writeOnRead Write back missing fields of read documents
+     */
+    public void setWriteOnRead(boolean writeOnRead) {
+        this.writeOnRead = writeOnRead;
+    }
+
+    /**
+     * Set maximum number of updates in one bulk write of missing fields
+     * @param batchSize Number of updates
+     */
+    public void setBackfillBatchSize(int batchSize) {
+        this.backfill.setBatchSize(batchSize);
+    }
+
+    /**
+     * Set executor writing missing fields of read documents, own daemon thread by default
+     * @param executor Executor
+     */
+    public void setBackfillExecutor(Executor executor) {
+        this.backfill.setExecutor(executor);
+    }
+
+    /**
+     * Get number of missing fields updates dropped because their bulk write failed. Failures are logged as warnings,
+     * documents are queued again when they're read next time
+     * @return Number of dropped updates
+     */
+    public long getBackfillFailures() {
+        return this.backfill.getFailed();
+    }
+
+    /**
+     * Set maximum number of primary keys in one query resolving foreign keys of fetched models
+     * @param foreignKeyBatchSize Batch size, at least 1
+     */
+    public void setForeignKeyBatchSize(int foreignKeyBatchSize) {
+        if (foreignKeyBatchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive");
+        this.foreignKeyBatchSize = foreignKeyBatchSize;
+    }
+
+    /**
+     * Decode fetched documents in parallel, documents are read on calling thread and decoded in chunks on pool
+     * @param chunkSize Number of documents decoded by one task, 0 to decode documents while reading
+     * @param ordered Keep models in order of documents, e.g. for sorted queries
+     */
+    public void setParallelDecode(int chunkSize, boolean ordered) {
+        if (chunkSize < 0)
+            throw new IllegalArgumentException("Chunk size can't be negative");
+        this.decodeChunkSize = chunkSize;
+        this.decodeOrdered = ordered;
+    }
+
+    /**
+     * Set pool decoding documents in parallel, common ForkJoin pool by default
+     * @param decodePool Pool
+     */
+    public void setDecodePool(ExecutorService decodePool) {
+        this.decodePool = decodePool;
+    }
 
     /**
      * Get client session
@@ -57,7 +266,7 @@ public class MongoDB extends BasicDatabase {
             throw new AlreadyConnectedException();
         MongoClientURI mongoClientURI = new MongoClientURI(uri);
         this.client = new MongoClient(mongoClientURI);
-        this.database = this.client.getDatabase(Objects.requireNonNull(mongoClientURI.getDatabase()));
+        this.database = this.withModelCodecs(this.client.getDatabase(Objects.requireNonNull(mongoClientURI.getDatabase())));
         this.connected = true;
     }
 
@@ -71,30 +280,165 @@ public class MongoDB extends BasicDatabase {
                 credentials.get("password").toCharArray()
         );
         this.client = new MongoClient(new ServerAddress(credentials.get("host"), Integer.parseInt(credentials.get("port"))), Collections.singletonList(credential));
-        this.database =  this.client.getDatabase(credentials.get("name"));
+        this.database = this.withModelCodecs(this.client.getDatabase(credentials.get("name")));
         this.connected = true;
     }
 
+    private MongoDatabase withModelCodecs(MongoDatabase database) {
+        return database.withCodecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromProviders(this.codecProvider),
+                database.getCodecRegistry()
+        ));
+    }
+
+    /**
+     * Get collection of initialized model, encoding and decoding model directly
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @return Collection of model
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    public <T extends BaseModel> MongoCollection<T> getCollection(Class<T> modelClass) throws ModelNotInitializedException {
+        MongoCollection<T> collection = (MongoCollection<T>) this.collections.get(modelClass);
+        if (collection == null)
+            throw new ModelNotInitializedException();
+        return collection;
+    }
+
     @Override
-    public final void initModel(Collection<Class<? extends BaseModel>> modelClasses) throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException {
+    public final void initModel(Collection<Class<? extends BaseModel>> modelClasses) throws ModelAnnotationMissingException, MoreThanOnePrimaryKeyException, NoPrimaryKeyException, NoSerializerFoundException, NoModelConstructorException {
         for (Class<? extends BaseModel> modelClass : modelClasses) {
-            if (!modelClass.isAnnotationPresent(Model.class))
-                throw new ModelAnnotationMissingException();
-            int primaryKeys = 0;
-            for (Field declaredField : modelClass.getDeclaredFields()) {
-                if(declaredField.isAnnotationPresent(ModelField.class))
-                    if (declaredField.getAnnotation(ModelField.class).isPrimaryKey())
-                        primaryKeys++;
+            ModelMetadata<? extends BaseModel> metadata = this.registerModel(modelClass);
+            String keyColumn = metadata.getPrimaryKey().getColumnName();
+            if (primaryKeyAsId && !keyColumn.equals(ID_COLUMN)) {
+                metadata = metadata.withColumnName(keyColumn, ID_COLUMN);
+                this.models.put(modelClass, metadata);
+                this.legacyKeyColumns.put(modelClass, keyColumn);
             }
-            if (primaryKeys == 0)
-                throw new NoPrimaryKeyException();
-            else if (primaryKeys != 1)
-                throw new MoreThanOnePrimaryKeyException();
-            String tableName = modelClass.getAnnotation(Model.class).tableName();
+            String tableName = metadata.getTableName();
             if (!this.database.listCollectionNames().into(new ArrayList<>()).contains(tableName))
                 this.database.createCollection(tableName);
-            this.collections.put(modelClass ,this.database.getCollection(tableName));
+            this.codecProvider.register(metadata, this.legacyKeyColumns.get(modelClass));
+            MongoCollection<? extends BaseModel> collection = this.database.getCollection(tableName, modelClass);
+            this.collections.put(modelClass, collection);
+            this.syncIndexes(collection, metadata);
+        }
+    }
+
+    /**
+     * Rewrite documents still storing primary key in separate column, so that primary key is their identifier.
+     * Key stored as string is converted to native form. Needed once after enabling primary key as identifier
+     * @param <T> Model class
+     * @param modelClass Model class initialized with primary key as identifier
+     * @return Number of moved documents
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws InvocationTargetException Serializer failed
+     */
+    public <T extends BaseModel> long moveKeysToId(Class<T> modelClass) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(modelClass);
+        String keyColumn = this.legacyKeyColumns.get(modelClass);
+        if (keyColumn == null)
+            return 0;
+        ModelFieldMetadata primaryKey = this.getModelMetadata(modelClass).getPrimaryKey();
+        List<WriteModel<BsonDocument>> writes = new ArrayList<>();
+        // Ordered, so that document is written under new identifier before old one is deleted
+        BulkWriteOptions options = new BulkWriteOptions().ordered(true);
+        long moved = 0;
+        try (MongoCursor<BsonDocument> cursor = documents.find(new BsonDocument(keyColumn, new BsonDocument("$exists", BsonBoolean.TRUE))).iterator()) {
+            while (cursor.hasNext()) {
+                BsonDocument document = cursor.next();
+                BsonValue oldId = document.get(ID_COLUMN);
+                BsonValue key = this.fieldCodec.toBsonValue(primaryKey, this.readValue(primaryKey, document.get(keyColumn)));
+                BsonDocument movedDocument = new BsonDocument(ID_COLUMN, key);
+                for (Map.Entry<String, BsonValue> entry : document.entrySet())
+                    if (!entry.getKey().equals(ID_COLUMN) && !entry.getKey().equals(keyColumn))
+                        movedDocument.append(entry.getKey(), entry.getValue());
+                writes.add(new ReplaceOneModel<>(new BsonDocument(ID_COLUMN, key), movedDocument, new ReplaceOptions().upsert(true)));
+                if (oldId != null && !oldId.equals(key))
+                    writes.add(new DeleteOneModel<>(new BsonDocument(ID_COLUMN, oldId)));
+                moved++;
+                if (writes.size() >= MIGRATION_BATCH_SIZE) {
+                    documents.bulkWrite(writes, options);
+                    writes.clear();
+                }
+            }
         }
+        if (!writes.isEmpty())
+            documents.bulkWrite(writes, options);
+        return moved;
+    }
+
+    /**
+     * Read stored value of field
+     */
+    private Object readValue(ModelFieldMetadata field, BsonValue value) throws InvocationTargetException {
+        BsonDocumentReader reader = new BsonDocumentReader(new BsonDocument(field.getColumnName(), value));
+        reader.readStartDocument();
+        reader.readBsonType();
+        reader.skipName();
+        return this.fieldCodec.read(reader, field);
+    }
+
+    /**
+     * Create indexes declared by model and unique index of primary key, drop indexes created for previous declarations.
+     * Only indexes with names prefixed with ratorm_ are managed
+     * @param collection Collection of model
+     * @param metadata Metadata of model
+     */
+    protected void syncIndexes(MongoCollection<?> collection, ModelMetadata<?> metadata) {
+        Map<String, IndexModel> declared = new LinkedHashMap<>();
+        ModelFieldMetadata primaryKey = metadata.getPrimaryKey();
+        // Identifier is always indexed uniquely
+        if (!primaryKey.getColumnName().equals(ID_COLUMN))
+            declared.put(INDEX_PREFIX + "primary_key", new IndexModel(
+                    new BsonDocument(primaryKey.getColumnName(), new BsonInt32(1)),
+                    new IndexOptions().name(INDEX_PREFIX + "primary_key").unique(true)
+            ));
+        for (IndexMetadata index : metadata.getIndexes()) {
+            BsonDocument keys = new BsonDocument();
+            for (int i = 0; i < index.getFields().size(); i++)
+                keys.append(index.getFields().get(i).getColumnName(), new BsonInt32(index.isDescending(i) ? -1 : 1));
+            IndexOptions options = new IndexOptions()
+                    .name(INDEX_PREFIX + index.getName())
+                    .unique(index.isUnique())
+                    .sparse(index.isSparse());
+            if (index.getExpireAfterSeconds() >= 0)
+                options.expireAfter(index.getExpireAfterSeconds(), TimeUnit.SECONDS);
+            declared.put(options.getName(), new IndexModel(keys, options));
+        }
+        for (BsonDocument existing : collection.listIndexes(BsonDocument.class)) {
+            String name = existing.getString("name").getValue();
+            if (!name.startsWith(INDEX_PREFIX))
+                continue;
+            IndexModel index = declared.get(name);
+            if (index != null && sameIndex(existing, index))
+                declared.remove(name);
+            else
+                collection.dropIndex(name);
+        }
+        if (!declared.isEmpty())
+            collection.createIndexes(new ArrayList<>(declared.values()));
+    }
+
+    /**
+     * Compare index existing in database with declared one
+     */
+    private static boolean sameIndex(BsonDocument existing, IndexModel index) {
+        BsonDocument keys = (BsonDocument) index.getKeys();
+        BsonDocument existingKeys = existing.getDocument("key");
+        if (!new ArrayList<>(existingKeys.keySet()).equals(new ArrayList<>(keys.keySet())))
+            return false;
+        for (String key : keys.keySet())
+            if (!existingKeys.get(key).isNumber() || existingKeys.get(key).asNumber().intValue() != keys.getInt32(key).getValue())
+                return false;
+        IndexOptions options = index.getOptions();
+        Long expireAfterSeconds = options.getExpireAfter(TimeUnit.SECONDS);
+        BsonValue existingExpireAfter = existing.get("expireAfterSeconds");
+        return existing.getBoolean("unique", BsonBoolean.FALSE).getValue() == options.isUnique()
+                && existing.getBoolean("sparse", BsonBoolean.FALSE).getValue() == options.isSparse()
+                && (expireAfterSeconds == null ? existingExpireAfter == null : existingExpireAfter != null && existingExpireAfter.isNumber() && existingExpireAfter.asNumber().longValue() == expireAfterSeconds);
     }
 
     @Override
@@ -103,11 +447,8 @@ public class MongoDB extends BasicDatabase {
             throw new NotConnectedToDatabaseException();
         if (!modelClass.isAnnotationPresent(Model.class))
             throw new ModelAnnotationMissingException();
-        String tableName = modelClass.getAnnotation(Model.class).tableName();
-        MongoCollection<Document> collection = this.collections.get(modelClass);
-        if (collection == null)
-            throw new ModelNotInitializedException();
-        return this.deserialize(modelClass, collection.find());
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.find(metadata, new BsonDocument());
     }
 
     @Override
@@ -116,213 +457,949 @@ public class MongoDB extends BasicDatabase {
             throw new NotConnectedToDatabaseException();
         if (!modelClass.isAnnotationPresent(Model.class))
             throw new ModelAnnotationMissingException();
-        String tableName = modelClass.getAnnotation(Model.class).tableName();
-        MongoCollection<Document> collection = this.collections.get(modelClass);
-        if (collection == null)
-            throw new ModelNotInitializedException();
-        String serialized = null;
-        Class<?> valueSerializer = this.serializers.get(value.getClass());
-        if (value.getClass().isAssignableFrom(Map.class))
-            valueSerializer =  MapSerializer.class;
-        if (valueSerializer == null) {
-            throw new NoSerializerFoundException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.find(metadata, this.matchingFilter(metadata, key, value));
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetchAll(Class<T> modelClass, IdentityMap identityMap) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.find(metadata, new BsonDocument(), new FetchContext(identityMap));
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value, IdentityMap identityMap) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.find(metadata, this.matchingFilter(metadata, key, value), new FetchContext(identityMap));
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetchAll(Class<T> modelClass, Projection projection) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        return this.find(this.getModelMetadata(modelClass), new BsonDocument(), projection);
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetchMatching(Class<T> modelClass, String key, Object value, Projection projection) throws NotConnectedToDatabaseException, ModelNotInitializedException, ModelAnnotationMissingException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.find(metadata, this.matchingFilter(metadata, key, value), projection);
+    }
+
+    @Override
+    public <T extends BaseModel> Page<T> fetchPage(Class<T> modelClass, int offset, int limit) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        checkPage(offset, limit);
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        Bson order = Sorts.ascending(metadata.getPrimaryKey().getColumnName());
+        List<T> models = this.find(metadata, new BsonDocument(), new FetchContext(), find -> find.sort(order).skip(offset).limit(pageReadLimit(limit)));
+        return this.page(modelClass, models, limit);
+    }
+
+    /**
+     * Fetch page by range query on primary key, cost doesn't depend on number of previous pages.
+     * Pages are ordered as keys are stored, in native modes documents with legacy string-encoded keys are skipped until saved again
+     */
+    @Override
+    public <T extends BaseModel> Page<T> fetchPageAfter(Class<T> modelClass, Object lastKey, int limit) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        checkPage(0, limit);
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        ModelFieldMetadata primaryKey = metadata.getPrimaryKey();
+        Bson filter = new BsonDocument();
+        if (lastKey != null) {
+            // Foreign keys and page tokens can pass primary key as raw string
+            if (lastKey instanceof String && !primaryKey.getType().isInstance(lastKey))
+                lastKey = this.deserializeField(primaryKey, lastKey);
+            filter = new BsonDocument(primaryKey.getColumnName(), new BsonDocument("$gt", this.fieldCodec.toBsonValue(primaryKey, lastKey)));
         }
-        boolean found = false;
-        String methodName = "serialize";
-        if (Map.class.isAssignableFrom(value.getClass()))
-            methodName+="Map";
-        for (Method declaredMethod : valueSerializer.getDeclaredMethods()) {
-            if (declaredMethod.getName().equals(methodName)) {
-                found = true;
-                if (Map.class.isAssignableFrom(value.getClass()))
-                    serialized = (String) declaredMethod.invoke(valueSerializer.newInstance(), value, this.serializers);
-                else
-                    serialized = (String) declaredMethod.invoke(valueSerializer.newInstance(), value);
-            }
+        Bson order = Sorts.ascending(primaryKey.getColumnName());
+        List<T> models = this.find(metadata, filter, new FetchContext(), find -> find.sort(order).limit(pageReadLimit(limit)));
+        return this.page(modelClass, models, limit);
+    }
+
+    @Override
+    public <T extends BaseModel> ModelCursor<T> iterateAll(Class<T> modelClass, int batchSize) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        return this.iterate(this.getModelMetadata(modelClass), new BsonDocument(), batchSize);
+    }
+
+    @Override
+    public <T extends BaseModel> ModelCursor<T> iterateMatching(Class<T> modelClass, String key, Object value, int batchSize) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.iterate(metadata, this.matchingFilter(metadata, key, value), batchSize);
+    }
+
+    /**
+     * Open cursor of models matching filter
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @param filter Filter
+     * @param batchSize Number of documents read and decoded at once
+     * @return Cursor of models
+     * @throws ModelNotInitializedException Model wasn't initialized
+     */
+    protected <T extends BaseModel> ModelCursor<T> iterate(ModelMetadata<T> metadata, Bson filter, int batchSize) throws ModelNotInitializedException {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive");
+        Class<T> modelClass = metadata.getModelClass();
+        MongoCursor<RawBsonDocument> cursor = this.getCollection(modelClass).withDocumentClass(RawBsonDocument.class)
+                .find(filter)
+                .batchSize(batchSize)
+                .iterator();
+        return new MongoModelCursor<>(this, this.codecProvider.get(modelClass), cursor, batchSize);
+    }
+
+    @Override
+    public <T extends BaseModel> List<T> fetch(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!query.getModelClass().isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(query.getModelClass());
+        Bson[] translated = this.translate(metadata, query);
+        Bson order = translated[1];
+        return this.find(metadata, translated[0], new FetchContext(), find -> find.sort(order).limit(query.getLimit()));
+    }
+
+    /**
+     * Translate query to filter and sort, once per query
+     * @param metadata Metadata of model
+     * @param query Query
+     * @return Filter and sort
+     * @throws InvocationTargetException Serializer failed
+     */
+    private Bson[] translate(ModelMetadata<?> metadata, Query<?> query) throws InvocationTargetException {
+        Bson[] translated = this.translatedQueries.get(query);
+        if (translated == null) {
+            translated = new Bson[] { this.queryFilter(metadata, query.getCondition()), this.querySort(metadata, query) };
+            this.translatedQueries.put(query, translated);
+        }
+        return translated;
+    }
+
+    @Override
+    public <T extends BaseModel> long count(Class<T> modelClass) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        return this.documents(modelClass).countDocuments();
+    }
+
+    @Override
+    public <T extends BaseModel> long count(Class<T> modelClass, String key, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(modelClass);
+        return documents.countDocuments(this.matchingFilter(this.getModelMetadata(modelClass), key, value));
+    }
+
+    @Override
+    public <T extends BaseModel> long count(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(query.getModelClass());
+        Bson filter = this.translate(this.getModelMetadata(query.getModelClass()), query)[0];
+        return documents.countDocuments(filter, new CountOptions().limit(query.getLimit()));
+    }
+
+    @Override
+    public <T extends BaseModel> boolean exists(Class<T> modelClass, String key, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(modelClass);
+        return this.exists(documents, this.matchingFilter(this.getModelMetadata(modelClass), key, value));
+    }
+
+    @Override
+    public <T extends BaseModel> boolean exists(Query<T> query) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(query.getModelClass());
+        return this.exists(documents, this.translate(this.getModelMetadata(query.getModelClass()), query)[0]);
+    }
+
+    /**
+     * Check whether any document matches filter, reading only identifier of first one
+     */
+    private boolean exists(MongoCollection<BsonDocument> documents, Bson filter) {
+        return documents.find(filter).projection(Projections.include(ID_COLUMN)).limit(1).first() != null;
+    }
+
+    /**
+     * Distinct values of field. Value stored as string and natively is returned once
+     */
+    @Override
+    public <T extends BaseModel> List<Object> distinct(Class<T> modelClass, String field) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(modelClass);
+        ModelFieldMetadata fieldMetadata = this.distinctField(this.getModelMetadata(modelClass), field);
+        Set<Object> values = new LinkedHashSet<>();
+        for (BsonValue value : documents.distinct(fieldMetadata.getColumnName(), BsonValue.class))
+            values.add(this.readValue(fieldMetadata, value));
+        return new ArrayList<>(values);
+    }
+
+    /**
+     * Collection of model reading raw documents, for operations which don't need models
+     */
+    private MongoCollection<BsonDocument> documents(Class<? extends BaseModel> modelClass) throws NotConnectedToDatabaseException, ModelAnnotationMissingException, ModelNotInitializedException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        return this.getCollection(modelClass).withDocumentClass(BsonDocument.class);
+    }
+
+    /**
+     * Translate condition of query to filter
+     * @param metadata Metadata of model
+     * @param condition Condition or null when every document matches
+     * @return Filter
+     * @throws InvocationTargetException Serializer failed
+     */
+    protected Bson queryFilter(ModelMetadata<?> metadata, Condition condition) throws InvocationTargetException {
+        if (condition == null)
+            return new BsonDocument();
+        if (condition.isComposite()) {
+            BsonArray filters = new BsonArray();
+            for (Condition child : condition.getConditions())
+                filters.add((BsonDocument) this.queryFilter(metadata, child));
+            if (filters.isEmpty())
+                // Empty AND matches every document, empty OR none
+                return condition.getOperator() == QueryOperator.AND ? new BsonDocument() : new BsonDocument("_id", new BsonDocument("$in", new BsonArray()));
+            return new BsonDocument(condition.getOperator() == QueryOperator.AND ? "$and" : "$or", filters);
+        }
+        ModelFieldMetadata field = metadata.getField(condition.getField());
+        if (field == null)
+            throw new IllegalArgumentException("Model " + metadata.getModelClass().getName() + " doesn't have field " + condition.getField());
+        String column = field.getColumnName();
+        BsonArray candidates = new BsonArray();
+        switch (condition.getOperator()) {
+            case EQUALS:
+                return this.fieldFilter(field, this.queryValue(field, condition.getValue()));
+            case NOT_EQUALS:
+                this.addStoredForms(candidates, field, this.queryValue(field, condition.getValue()));
+                return new BsonDocument(column, new BsonDocument("$nin", candidates));
+            case IN:
+            case NOT_IN:
+                for (Object value : condition.getValues())
+                    this.addStoredForms(candidates, field, this.queryValue(field, value));
+                return new BsonDocument(column, new BsonDocument(condition.getOperator() == QueryOperator.IN ? "$in" : "$nin", candidates));
+            default:
+                String operator = rangeOperator(condition.getOperator());
+                Object value = this.queryValue(field, condition.getValue());
+                if (value instanceof Number)
+                    return this.rangeFilter(column, operator, value);
+                return new BsonDocument(column, new BsonDocument(operator, this.fieldCodec.toBsonValue(field, value)));
+        }
+    }
+
+    /**
+     * Values passed as string to field of other type are deserialized, e.g. primary keys of foreign keys
+     */
+    private Object queryValue(ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        if (field.getKind() == FieldKind.VALUE && value instanceof String && !field.getType().isInstance(value))
+            return this.deserializeField(field, value);
+        return value;
+    }
+
+    /**
+     * Translate order of query. In string mode values are ordered as strings
+     * @param metadata Metadata of model
+     * @param query Query
+     * @return Sort or null when query isn't sorted
+     */
+    protected Bson querySort(ModelMetadata<?> metadata, Query<?> query) {
+        if (query.getSorts().isEmpty())
+            return null;
+        BsonDocument order = new BsonDocument();
+        for (Sort sort : query.getSorts()) {
+            ModelFieldMetadata field = metadata.getField(sort.getField());
+            if (field == null)
+                throw new IllegalArgumentException("Model " + metadata.getModelClass().getName() + " doesn't have field " + sort.getField());
+            order.append(field.getColumnName(), new BsonInt32(sort.isAscending() ? 1 : -1));
+        }
+        return order;
+    }
+
+    /**
+     * Fetch all objects matching expression, evaluated by database. Range expressions compare numbers,
+     * values stored as strings are converted by database (requires MongoDB 4.0)
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @param field Name of field or column
+     * @param expression Expression
+     * @param value Not serialized value compared to field
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws NoSerializerFoundException Serializer for field model wasn't found
+     * @throws InvocationTargetException Java exception when wasn't able to invoke method
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws IllegalAccessException Java security exception
+     * @return List of fetched objects
+     */
+    public <T extends BaseModel> List<T> fetchFiltered(Class<T> modelClass, String field, FilterExpression expression, Object value) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (!connected)
+            throw new NotConnectedToDatabaseException();
+        if (!modelClass.isAnnotationPresent(Model.class))
+            throw new ModelAnnotationMissingException();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        return this.find(metadata, this.expressionFilter(metadata, field, expression, value));
+    }
+
+    /**
+     * Translate expression to filter
+     * @param metadata Metadata of model
+     * @param key Field name or key in database
+     * @param expression Expression
+     * @param value Not serialized value compared to field
+     * @return Filter
+     * @throws InvocationTargetException Serializer failed
+     * @throws NoSerializerFoundException Serializer for value wasn't found
+     */
+    protected Bson expressionFilter(ModelMetadata<?> metadata, String key, FilterExpression expression, Object value) throws InvocationTargetException, NoSerializerFoundException {
+        switch (expression) {
+            case EQUALS:
+                return this.matchingFilter(metadata, key, value);
+            case NOT_EQUALS:
+                BsonDocument equals = (BsonDocument) this.matchingFilter(metadata, key, value);
+                String column = equals.getFirstKey();
+                BsonValue matched = equals.get(column);
+                BsonArray excluded = matched.isDocument() ? matched.asDocument().getArray("$in") : new BsonArray(Collections.singletonList(matched));
+                return new BsonDocument(column, new BsonDocument("$exists", BsonBoolean.TRUE).append("$nin", excluded));
+            default:
+                ModelFieldMetadata field = metadata.getField(key);
+                return this.rangeFilter(field != null ? field.getColumnName() : key, rangeOperator(expression), value);
+        }
+    }
+
+    private static String rangeOperator(FilterExpression expression) {
+        switch (expression) {
+            case GREATER_THAN:
+                return "$gt";
+            case GREATER_THAN_EQUALS:
+                return "$gte";
+            case LESS_THAN:
+                return "$lt";
+            case LESS_THAN_EQUALS:
+                return "$lte";
+            default:
+                throw new IllegalArgumentException("Not a range expression " + expression);
+        }
+    }
+
+    private static String rangeOperator(QueryOperator operator) {
+        switch (operator) {
+            case GREATER_THAN:
+                return "$gt";
+            case GREATER_THAN_EQUALS:
+                return "$gte";
+            case LESS_THAN:
+                return "$lt";
+            case LESS_THAN_EQUALS:
+                return "$lte";
+            default:
+                throw new IllegalArgumentException("Not a range operator " + operator);
+        }
+    }
+
+    /**
+     * Numeric range filter. Native numbers are compared directly, numbers stored as strings are converted by database
+     * @param column Column in database
+     * @param operator Comparison operator, e.g. $gt
+     * @param value Number or its string form
+     * @return Filter
+     */
+    protected Bson rangeFilter(String column, String operator, Object value) {
+        BsonDecimal128 number;
+        try {
+            number = new BsonDecimal128(new Decimal128(new BigDecimal(value.toString())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Range expressions need numeric value, got " + value, e);
+        }
+        BsonDocument converted = new BsonDocument("$convert", new BsonDocument("input", new BsonString("$" + column))
+                .append("to", new BsonString("decimal"))
+                .append("onError", BsonNull.VALUE)
+                .append("onNull", BsonNull.VALUE));
+        BsonDocument stringForm = new BsonDocument(column, new BsonDocument("$type", new BsonString("string")))
+                .append("$expr", new BsonDocument("$and", new BsonArray(Arrays.asList(
+                        new BsonDocument("$ne", new BsonArray(Arrays.asList(converted, BsonNull.VALUE))),
+                        new BsonDocument(operator, new BsonArray(Arrays.asList(converted, number)))
+                ))));
+        // Identifier is stored natively in every mode
+        if (column.equals(ID_COLUMN))
+            return new BsonDocument(column, new BsonDocument(operator, number));
+        if (this.storageMode == StorageMode.STRINGS)
+            return stringForm;
+        return new BsonDocument("$or", new BsonArray(Arrays.asList(
+                new BsonDocument(column, new BsonDocument(operator, number)),
+                stringForm
+        )));
+    }
+
+    /**
+     * Filter matching value of field or of raw key when model doesn't have such field
+     * @param metadata Metadata of model
+     * @param key Field name or key in database
+     * @param value Not serialized value of field
+     * @return Filter
+     * @throws InvocationTargetException Serializer failed
+     * @throws NoSerializerFoundException Serializer for value wasn't found
+     */
+    protected Bson matchingFilter(ModelMetadata<?> metadata, String key, Object value) throws InvocationTargetException, NoSerializerFoundException {
+        ModelFieldMetadata field = metadata.getField(key);
+        if (field != null) {
+            // Foreign keys pass primary key as raw string
+            if (field.getKind() == FieldKind.VALUE && value instanceof String && !field.getType().isInstance(value))
+                value = this.deserializeField(field, value);
+            return this.fieldFilter(field, value);
+        }
+        String serialized;
+        try {
+            serialized = this.serializers.serialize(value.getClass(), value);
+        } catch (SerializerException e) {
+            throw new InvocationTargetException(e);
         }
-        if (!found || serialized == null)
+        if (serialized == null)
             throw new NoSerializerFoundException();
-       return this.deserialize(modelClass, collection.find(new Document(key, serialized)));
-    }
-
-    protected <T extends BaseModel> Document serialize(Class<T> modelClass, T object) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException {
-        Document document = new Document();
-        Document key = new Document();
-        for (Field declaredField : modelClass.getDeclaredFields()) {
-            if (declaredField.isAnnotationPresent(ModelField.class)) {
-                Class<? extends Serializer> serializer = this.serializers.get(declaredField.getType());
-                if (Map.class.isAssignableFrom(declaredField.getType()))
-                    serializer =  MapSerializer.class;
-                else if (Collection.class.isAssignableFrom(declaredField.getType()))
-                    serializer = CollectionSerializer.class;
-                else if (declaredField.getAnnotation(ModelField.class).isForeignKey())
-                    serializer = ForeignKeySerializer.class;
-                if (serializer == null) {
-                    throw new NoSerializerFoundException();
-                }
-                declaredField.setAccessible(true);
-                Object value = declaredField.get(object);
-                boolean found = false;
-                String methodName = "serialize";
-                if (Map.class.isAssignableFrom(declaredField.getType()))
-                    methodName+="Map";
-                else if (Collection.class.isAssignableFrom(declaredField.getType()))
-                    methodName+="Collection";
-                else if (declaredField.getAnnotation(ModelField.class).isForeignKey())
-                    methodName+="ForeignKey";
-                for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                    if (declaredMethod.getName().equals(methodName)) {
-                        found = true;
-                        String name = declaredField.getAnnotation(ModelField.class).name();
-                        if (name.equals("")) {
-                            name = declaredField.getName();
-                        }
-                        String serialized;
-                        if (declaredField.getAnnotation(ModelField.class).isForeignKey())
-                            serialized = (String) declaredMethod.invoke(serializer.newInstance(),declaredField.getType() , value, this.serializers);
-                        else if (Map.class.isAssignableFrom(declaredField.getType()) || Collection.class.isAssignableFrom(declaredField.getType()))
-                            serialized = (String) declaredMethod.invoke(serializer.newInstance(), value, this.serializers);
-                        else
-                            serialized = (String) declaredMethod.invoke(serializer.newInstance(), value);
-                        document.put(name, serialized);
-                        if (declaredField.getAnnotation(ModelField.class).isPrimaryKey())
-                            key.put(name, serialized);
+        return new BsonDocument(key, new BsonString(serialized));
+    }
+
+    /**
+     * Filter matching field value. In native modes legacy string-encoded value is matched as well
+     * @param field Metadata of field
+     * @param value Not serialized value
+     * @return Filter
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    protected Bson fieldFilter(ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        BsonArray candidates = new BsonArray();
+        this.addStoredForms(candidates, field, value);
+        if (candidates.size() == 1)
+            return new BsonDocument(field.getColumnName(), candidates.get(0));
+        return new BsonDocument(field.getColumnName(), new BsonDocument("$in", candidates));
+    }
+
+    /**
+     * Add every form of value which can be stored in database, native value and legacy string in native modes.
+     * Identifier of document has only native form
+     * @param candidates Array receiving stored forms
+     * @param field Metadata of field
+     * @param value Not serialized value
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    protected void addStoredForms(BsonArray candidates, ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        BsonValue stored = this.fieldCodec.toBsonValue(field, value);
+        candidates.add(stored);
+        if (!stored.isString() && !stored.isNull() && field.getSerializer() != null && !field.getColumnName().equals(ID_COLUMN))
+            candidates.add(new BsonString(this.serializeField(field, value)));
+    }
+
+    /**
+     * Filter matching primary key of model
+     * @param metadata Metadata of model
+     * @param object Model instance
+     * @return Filter
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    protected <T extends BaseModel> Bson keyFilter(ModelMetadata<T> metadata, T object) throws InvocationTargetException {
+        ModelFieldMetadata primaryKey = metadata.getPrimaryKey();
+        return this.fieldFilter(primaryKey, primaryKey.getAccessor().get(object));
+    }
+
+    /**
+     * Serialize value of field with serializer resolved in metadata
+     * @param field Metadata of field
+     * @param value Not serialized value
+     * @return Serialized value
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    public String serializeField(ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        try {
+            switch (field.getKind()) {
+                case FOREIGN_KEY:
+                    ForeignKeySerializer foreignKeySerializer = (ForeignKeySerializer) field.getSerializer();
+                    if (value instanceof ForeignKeyReference) {
+                        ForeignKeyReference<?> reference = (ForeignKeyReference<?>) value;
+                        if (reference.getSerializedKey() != null)
+                            return reference.getSerializedKey();
+                        value = reference.getModelClass().cast(reference.get());
                     }
+                    if (value == null)
+                        return null;
+                    ModelMetadata<?> foreignKeyMetadata = this.models.get(field.getReferencedType());
+                    if (foreignKeyMetadata != null)
+                        return foreignKeySerializer.serializeForeignKey(foreignKeyMetadata, (BaseModel) value);
+                    return foreignKeySerializer.serializeForeignKey((Class<BaseModel>) field.getReferencedType(), (BaseModel) value, this.serializers);
+                case MAP:
+                    if (field.getKeyType() != null && field.getElementType() != null)
+                        return ((MapSerializer) field.getSerializer()).serializeMap((Map<?, ?>) value, field.getKeyType(), field.getElementType(), this.serializers);
+                    return ((MapSerializer) field.getSerializer()).serializeMap((Map<?, ?>) value, this.serializers);
+                case COLLECTION:
+                    if (field.getElementType() != null)
+                        return ((CollectionSerializer) field.getSerializer()).serializeCollection((Collection<?>) value, field.getElementType(), this.serializers);
+                    return ((CollectionSerializer) field.getSerializer()).serializeCollection((Collection<?>) value, this.serializers);
+                default:
+                    if (field.getSerializer() == null)
+                        throw new SerializerException("Field " + field.getName() + " has only streaming serializer");
+                    return field.getSerializer().serialize(value);
+            }
+        } catch (SerializerException | NotConnectedToDatabaseException | ModelNotInitializedException | ModelAnnotationMissingException | NoSerializerFoundException | InstantiationException | IllegalAccessException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Deserialize value of field with serializer resolved in metadata
+     * @param field Metadata of field
+     * @param value Value received from database
+     * @return Deserialized value
+     * @throws InvocationTargetException Serializer wasn't able to deserialize value
+     */
+    public Object deserializeField(ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        try {
+            switch (field.getKind()) {
+                case FOREIGN_KEY:
+                    if (field.isLazy())
+                        return new ForeignKeyReference<>((Class<BaseModel>) field.getReferencedType(), (String) value, this);
+                    return ((ForeignKeySerializer) field.getSerializer()).deserializeForeignKey((Class<BaseModel>) field.getReferencedType(), (String) value, this);
+                case MAP:
+                    if (field.getKeyType() != null && field.getElementType() != null)
+                        return ((MapSerializer) field.getSerializer()).deserializeMap((String) value, field.getKeyType(), field.getElementType(), this.serializers);
+                    return ((MapSerializer) field.getSerializer()).deserializeMap((String) value, this.serializers);
+                case COLLECTION:
+                    if (field.getElementType() != null)
+                        return ((CollectionSerializer) field.getSerializer()).deserializeCollection((String) value, field.getElementType(), this.serializers);
+                    return ((CollectionSerializer) field.getSerializer()).deserializeCollection((String) value, this.serializers);
+                default:
+                    if (field.getSerializer() == null)
+                        throw new SerializerException("Field " + field.getName() + " has only streaming serializer");
+                    return field.getSerializer().deserialize((String) value);
+            }
+        } catch (SerializerException | ClassNotFoundException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Fetch models matching filter, models decoded from documents without some fields are saved again
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @param filter Filter
+     * @return Fetched models
+     */
+    protected <T extends BaseModel> List<T> find(ModelMetadata<T> metadata, Bson filter) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        return this.find(metadata, filter, new FetchContext());
+    }
+
+    protected <T extends BaseModel> List<T> find(ModelMetadata<T> metadata, Bson filter, FetchContext context) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        return this.find(metadata, filter, context, UnaryOperator.identity());
+    }
+
+    /**
+     * Fetch models matching filter reading only projected fields, partial models aren't saved again
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @param filter Filter
+     * @param projection Fields to read
+     * @return Fetched models
+     */
+    protected <T extends BaseModel> List<T> find(ModelMetadata<T> metadata, Bson filter, Projection projection) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        List<String> columns = new ArrayList<>();
+        for (ModelFieldMetadata field : projection.resolve(metadata))
+            columns.add(field.getColumnName());
+        Bson include = Projections.include(columns);
+        return this.find(metadata, filter, new FetchContext().partial(), find -> find.projection(include));
+    }
+
+    /**
+     * Fetch models matching filter
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @param filter Filter
+     * @param context Context of fetch
+     * @param options Options of query, e.g. projection, sort or limit
+     * @return Fetched models
+     */
+    protected <T extends BaseModel> List<T> find(ModelMetadata<T> metadata, Bson filter, FetchContext context, UnaryOperator<FindIterable<T>> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        Class<T> modelClass = metadata.getModelClass();
+        MongoModelCodec<T> codec = this.codecProvider.get(modelClass).withContext(context);
+        MongoCollection<T> collection = this.getCollection(modelClass).withCodecRegistry(CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(codec),
+                this.database.getCodecRegistry()
+        ));
+        List<T> deserializedObjects;
+        try {
+            if (this.decodeChunkSize > 0 && !DECODING.get()) {
+                // Options only set parameters of query, documents are read as raw bytes and decoded on pool
+                FindIterable<RawBsonDocument> find = (FindIterable<RawBsonDocument>) (FindIterable<?>) options.apply((FindIterable<T>) (FindIterable<?>) collection.withDocumentClass(RawBsonDocument.class).find(filter));
+                deserializedObjects = this.decodeParallel(find, codec);
+            }
+            else
+                deserializedObjects = options.apply(collection.find(filter)).into(new LinkedList<>());
+        } catch (BSONException e) {
+            throw unwrap(e);
+        }
+        this.resolveReferences(context);
+        this.queueBackfill(metadata, context);
+        return deserializedObjects;
+    }
+
+    /**
+     * Queue updates setting fields missing in documents decoded by fetch, document is updated only while fields are still missing
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @param context Context of finished fetch
+     * @throws InvocationTargetException Serializer failed
+     */
+    protected <T extends BaseModel> void queueBackfill(ModelMetadata<T> metadata, FetchContext context) throws InvocationTargetException {
+        if (!this.writeOnRead || context.getIncomplete().isEmpty())
+            return;
+        for (FetchContext.Incomplete incomplete : context.getIncomplete()) {
+            BsonArray conditions = new BsonArray();
+            conditions.add(this.keyFilter(metadata, (T) incomplete.getModel()).toBsonDocument(BsonDocument.class, this.database.getCodecRegistry()));
+            for (ModelFieldMetadata field : incomplete.getMissing())
+                conditions.add(new BsonDocument(field.getColumnName(), new BsonDocument("$exists", BsonBoolean.FALSE)));
+            BsonDocument values = this.fieldValues(incomplete.getMissing(), incomplete.getModel());
+            this.backfill.add(metadata.getModelClass(), new UpdateOneModel<>(new BsonDocument("$and", conditions), new BsonDocument("$set", values)));
+        }
+        this.backfill.schedule();
+    }
+
+    /**
+     * Write fields missing in documents of model, without reading documents. Missing fields are set to values of new model instance
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @return Number of updated documents
+     * @throws ModelAnnotationMissingException Exception when model is not using @Model annotation
+     * @throws NotConnectedToDatabaseException Not connected to database
+     * @throws ModelNotInitializedException Model wasn't initialized
+     * @throws InstantiationException Java exception when model class wasn't able to create own instance
+     * @throws InvocationTargetException Serializer failed
+     */
+    public <T extends BaseModel> long migrate(Class<T> modelClass) throws ModelAnnotationMissingException, NotConnectedToDatabaseException, ModelNotInitializedException, InstantiationException, InvocationTargetException {
+        MongoCollection<BsonDocument> documents = this.documents(modelClass);
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        T defaults = metadata.getInstantiator().newInstance(new Object[metadata.getFields().size()]);
+        long modified = this.backfill.flush();
+        for (ModelFieldMetadata field : metadata.getFields()) {
+            if (field.isPrimaryKey())
+                continue;
+            BsonDocument missing = new BsonDocument(field.getColumnName(), new BsonDocument("$exists", BsonBoolean.FALSE));
+            BsonDocument values = this.fieldValues(Collections.singletonList(field), defaults);
+            modified += documents.updateMany(missing, new BsonDocument("$set", values)).getModifiedCount();
+        }
+        return modified;
+    }
+
+    /**
+     * Stored values of fields of model, by column
+     */
+    private BsonDocument fieldValues(List<ModelFieldMetadata> fields, BaseModel model) throws InvocationTargetException {
+        BsonDocumentWriter writer = new BsonDocumentWriter(new BsonDocument());
+        writer.writeStartDocument();
+        for (ModelFieldMetadata field : fields) {
+            writer.writeName(field.getColumnName());
+            this.fieldCodec.writeField(writer, field, model);
+        }
+        writer.writeEndDocument();
+        return writer.getDocument();
+    }
+
+    /**
+     * Read raw documents on calling thread and decode them in chunks on decode pool
+     * @param <T> Model class
+     * @param find Query returning raw documents
+     * @param codec Codec of model bound to context of fetch
+     * @return Decoded models, in order of documents when decoding is ordered
+     */
+    private <T extends BaseModel> List<T> decodeParallel(FindIterable<RawBsonDocument> find, MongoModelCodec<T> codec) {
+        try (MongoCursor<RawBsonDocument> cursor = find.batchSize(this.decodeChunkSize).iterator()) {
+            return decodeChunks(cursor, codec, this.decodeChunkSize, this.decodeOrdered, this.decodePool);
+        }
+    }
+
+    /**
+     * Decode documents in chunks on pool, last chunk is decoded on calling thread while pool decodes the rest
+     * @param <T> Model class
+     * @param documents Raw documents
+     * @param codec Codec of model
+     * @param chunkSize Number of documents decoded by one task
+     * @param ordered Keep models in order of documents, otherwise chunks are added as they're finished
+     * @param pool Pool decoding chunks
+     * @return Decoded models
+     */
+    static <T extends BaseModel> List<T> decodeChunks(Iterator<RawBsonDocument> documents, MongoModelCodec<T> codec, int chunkSize, boolean ordered, ExecutorService pool) {
+        ExecutorCompletionService<List<T>> completion = new ExecutorCompletionService<>(pool);
+        List<Future<List<T>>> chunks = new ArrayList<>();
+        List<RawBsonDocument> chunk = new ArrayList<>(chunkSize);
+        try {
+            while (documents.hasNext()) {
+                chunk.add(documents.next());
+                if (chunk.size() == chunkSize) {
+                    List<RawBsonDocument> submitted = chunk;
+                    chunks.add(completion.submit(() -> decodeOnPool(submitted, codec)));
+                    chunk = new ArrayList<>(chunkSize);
                 }
-                if (!found)
-                    throw new NoSerializerFoundException();
             }
+            List<T> models = new ArrayList<>();
+            List<T> last = decode(chunk, codec);
+            if (!ordered)
+                models.addAll(last);
+            for (int i = 0; i < chunks.size(); i++)
+                models.addAll((ordered ? chunks.get(i) : completion.take()).get());
+            if (ordered)
+                models.addAll(last);
+            return models;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BSONException("Interrupted while decoding", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new BSONException("Cannot decode", e.getCause());
+        } finally {
+            for (Future<List<T>> future : chunks)
+                future.cancel(false);
         }
-        return new Document("key", key).append("value", document);
-    }
-
-    protected <T extends BaseModel> List<T> deserialize(Class<T> modelClass, FindIterable<Document> receivedObjects) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException {
-        List<T> deserializedObjects = new LinkedList<>();
-        for (Document receivedObject : receivedObjects) {
-            boolean toBeFixed = false;
-            T initializedClass = modelClass.newInstance();
-            for (Field declaredField : modelClass.getDeclaredFields()) {
-                boolean found = false;
-                if (declaredField.isAnnotationPresent(ModelField.class)) {
-                    declaredField.setAccessible(true);
-                    Class<? extends Serializer> serializer = this.serializers.get(declaredField.getType());
-                    if (Map.class.isAssignableFrom(declaredField.getType()))
-                        serializer =  MapSerializer.class;
-                    else if (Collection.class.isAssignableFrom(declaredField.getType()))
-                        serializer = CollectionSerializer.class;
-                    else if (declaredField.getAnnotation(ModelField.class).isForeignKey())
-                        serializer = ForeignKeySerializer.class;
-                    if (serializer == null) {
-                        throw new NoSerializerFoundException();
-                    }
-                    String name = declaredField.getAnnotation(ModelField.class).name();
-                    if (name.equals("")) {
-                        name = declaredField.getName();
-                    }
-                    Object value = receivedObject.get(name);
-                    if (value == null) {
-                        value = declaredField.get(initializedClass);
-                        toBeFixed = true;
-                    }
-                    String methodName = "deserialize";
-                    if (Map.class.isAssignableFrom(declaredField.getType()))
-                        methodName+="Map";
-                    else if (Collection.class.isAssignableFrom(declaredField.getType()))
-                        methodName+="Collection";
-                    else if (declaredField.getAnnotation(ModelField.class).isForeignKey())
-                        methodName+="ForeignKey";
-                    for (Method declaredMethod : serializer.getDeclaredMethods()) {
-                        if (declaredMethod.getName().equals(methodName)) {
-                            found = true;
-                            Object deserialized;
-                            if (declaredField.getAnnotation(ModelField.class).isForeignKey())
-                                deserialized = declaredMethod.invoke(serializer.newInstance(),declaredField.getType() , value, this);
-                            else if (Map.class.isAssignableFrom(declaredField.getType()) || Collection.class.isAssignableFrom(declaredField.getType()))
-                                deserialized = declaredMethod.invoke(serializer.newInstance(), value, this.serializers);
-                            else
-                                deserialized = declaredMethod.invoke(serializer.newInstance(), value);
-                            declaredField.set(initializedClass, deserialized);
-                        }
-                    }
-                    if (!found)
-                        throw new NoSerializerFoundException();
+    }
+
+    private static <T extends BaseModel> List<T> decodeOnPool(List<RawBsonDocument> documents, MongoModelCodec<T> codec) {
+        boolean decoding = DECODING.get();
+        DECODING.set(true);
+        try {
+            return decode(documents, codec);
+        } finally {
+            DECODING.set(decoding);
+        }
+    }
+
+    private static <T extends BaseModel> List<T> decode(List<RawBsonDocument> documents, MongoModelCodec<T> codec) {
+        DecoderContext decoderContext = DecoderContext.builder().build();
+        List<T> models = new ArrayList<>(documents.size());
+        for (RawBsonDocument document : documents)
+            models.add(codec.decode(document.asBsonReader(), decoderContext));
+        return models;
+    }
+
+    /**
+     * Resolve foreign keys deferred while decoding, one query per referenced model and batch of keys.
+     * Lazy foreign keys are only linked to models loaded by this fetch
+     * @param context Context of fetch
+     */
+    protected void resolveReferences(FetchContext context) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        for (ForeignKeyReference<?> reference : context.getLazyReferences()) {
+            ModelFieldMetadata primaryKey = this.getModelMetadata(reference.getModelClass()).getPrimaryKey();
+            Object key = this.referencedKey(primaryKey, reference.getSerializedKey());
+            BaseModel loaded = context.getLoaded(reference.getModelClass(), key);
+            if (loaded != null)
+                ((ForeignKeyReference<BaseModel>) reference).load(loaded);
+        }
+        List<FetchContext.Reference> references = context.getReferences();
+        if (references.isEmpty())
+            return;
+        Object[] keys = new Object[references.size()];
+        Map<Class<? extends BaseModel>, Set<Object>> missing = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            FetchContext.Reference reference = references.get(i);
+            Class<? extends BaseModel> referencedClass = (Class<? extends BaseModel>) reference.getField().getReferencedType();
+            ModelFieldMetadata primaryKey = this.getModelMetadata(referencedClass).getPrimaryKey();
+            keys[i] = this.referencedKey(primaryKey, reference.getSerializedKey());
+            if (context.getLoaded(referencedClass, keys[i]) == null)
+                missing.computeIfAbsent(referencedClass, k -> new LinkedHashSet<>()).add(keys[i]);
+        }
+        for (Map.Entry<Class<? extends BaseModel>, Set<Object>> entry : missing.entrySet()) {
+            ModelMetadata<? extends BaseModel> metadata = this.getModelMetadata(entry.getKey());
+            List<Object> batch = new ArrayList<>();
+            for (Object key : entry.getValue()) {
+                batch.add(key);
+                if (batch.size() == this.foreignKeyBatchSize) {
+                    this.findByKeys(metadata, batch, context);
+                    batch.clear();
                 }
             }
-            deserializedObjects.add(initializedClass);
-            if (toBeFixed)
-                this.save(initializedClass, modelClass);
+            if (!batch.isEmpty())
+                this.findByKeys(metadata, batch, context);
         }
-        return deserializedObjects;
+        for (int i = 0; i < keys.length; i++) {
+            FetchContext.Reference reference = references.get(i);
+            reference.getField().getAccessor().set(reference.getModel(), context.getLoaded(reference.getField().getReferencedType(), keys[i]));
+        }
+    }
+
+    /**
+     * Primary key of referenced model stored in foreign key
+     */
+    private Object referencedKey(ModelFieldMetadata primaryKey, String serializedKey) throws InvocationTargetException {
+        return this.deserializeField(primaryKey, serializedKey.substring(serializedKey.indexOf(ForeignKeyReference.SEPARATOR) + ForeignKeyReference.SEPARATOR.length()));
+    }
+
+    /**
+     * Load model referenced by foreign key of model created by constructor, such model needs it before it's created,
+     * so it can't be resolved in batch. Models loaded by fetch are reused, others are loaded by one query each
+     * @param field Foreign key field
+     * @param serializedKey Foreign key as stored in database
+     * @param context Context of fetch
+     * @return Referenced model or null when it doesn't exist
+     * @throws InvocationTargetException Serializer or query failed
+     * @throws InstantiationException Referenced model wasn't able to be created or foreign keys of models created by constructor form cycle
+     */
+    public BaseModel loadReference(ModelFieldMetadata field, String serializedKey, FetchContext context) throws InvocationTargetException, InstantiationException {
+        try {
+            ModelMetadata<BaseModel> metadata = this.getModelMetadata((Class<BaseModel>) field.getReferencedType());
+            Object key = this.referencedKey(metadata.getPrimaryKey(), serializedKey);
+            BaseModel loaded = context.getLoaded(metadata.getModelClass(), key);
+            if (loaded != null)
+                return loaded;
+            // Referenced model waits for this one, neither of them can be created first
+            if (context.isConstructing(metadata.getModelClass(), key))
+                throw new InstantiationException("Cyclic foreign key " + field.getName() + " of models created by constructor, referenced "
+                        + metadata.getModelClass().getName() + " " + key + " is being created. Use ForeignKeyReference to break the cycle");
+            List<BaseModel> models = this.find(metadata, this.fieldFilter(metadata.getPrimaryKey(), key), context.nested());
+            return models.isEmpty() ? null : models.get(0);
+        } catch (NoSerializerFoundException | IllegalAccessException | NotConnectedToDatabaseException | ModelNotInitializedException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private <T extends BaseModel> void findByKeys(ModelMetadata<T> metadata, List<Object> keys, FetchContext context) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
+        ModelFieldMetadata primaryKey = metadata.getPrimaryKey();
+        BsonArray candidates = new BsonArray();
+        for (Object key : keys)
+            this.addStoredForms(candidates, primaryKey, key);
+        this.find(metadata, new BsonDocument(primaryKey.getColumnName(), new BsonDocument("$in", candidates)), context.nested());
+    }
+
+    /**
+     * Update setting every field of model. Columns not declared by model are kept, identifier is set from filter on insert
+     */
+    static <T extends BaseModel> Bson upsertUpdate(MongoModelCodec<T> codec, T object, Bson key) {
+        BsonDocument values = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(values), object, EncoderContext.builder().build());
+        values.remove(ID_COLUMN);
+        // Empty $set is rejected, model with only identifier just has to exist, its filter is plain identifier then
+        if (values.isEmpty())
+            return new BsonDocument("$setOnInsert", (BsonDocument) key);
+        return new BsonDocument("$set", values);
+    }
+
+    /**
+     * Rethrow exception of serializer wrapped by codec
+     */
+    private RuntimeException unwrap(BSONException e) throws InvocationTargetException, InstantiationException {
+        if (e.getCause() instanceof InvocationTargetException)
+            throw (InvocationTargetException) e.getCause();
+        if (e.getCause() instanceof InstantiationException)
+            throw (InstantiationException) e.getCause();
+        return e;
     }
 
     @Override
-    public <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException {
+    public <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException, ModelNotInitializedException {
         this.saveManyToDatabase(objects, modelClass, new HashMap<>());
     }
 
     @Override
-    public <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException {
+    public <T extends BaseModel> void saveMany(Collection<T> objects, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException, ModelNotInitializedException {
         this.saveManyToDatabase(objects, modelClass, options);
     }
 
-    protected <T extends BaseModel> void saveManyToDatabase(Collection<T> objects, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException {
+    protected <T extends BaseModel> void saveManyToDatabase(Collection<T> objects, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InvocationTargetException, InstantiationException, IllegalAccessException, NotConnectedToDatabaseException, ModelNotInitializedException {
         if (!connected)
             throw new NotConnectedToDatabaseException();
-        List<WriteModel<Document>> writes = new ArrayList<>();
-        for (T object : objects) {
-            Document serializedObject = serialize(modelClass, object);
-            Document document = serializedObject.get("value", Document.class);
-            Document key = serializedObject.get("key", Document.class);
-            writes.add(
-                    new UpdateOneModel<Document>(
-                            key, new Document("$set", document), new UpdateOptions().upsert( true )
-                    )
-            );
-            object.lockWrite();
-        }
-        if (options.containsKey("MongoDB.session"))
-            this.collections.get(modelClass).bulkWrite((ClientSession) options.get("MongoDB.session"), writes);
-        else
-            this.collections.get(modelClass).bulkWrite(writes);
-        for (T object : objects) {
-            object.unlockWrite();
+        ModelMetadata<T> metadata = this.getModelMetadata(modelClass);
+        MongoCollection<T> collection = this.getCollection(modelClass);
+        MongoModelCodec<T> codec = this.codecProvider.get(modelClass);
+        // Filters can fail, they're built before any model is locked
+        List<Bson> keys = new ArrayList<>(objects.size());
+        for (T object : objects)
+            keys.add(keyFilter(metadata, object));
+        List<T> locked = new ArrayList<>(objects.size());
+        try {
+            for (T object : objects) {
+                object.lockWrite();
+                locked.add(object);
+            }
+            List<WriteModel<T>> writes = new ArrayList<>(objects.size());
+            Iterator<Bson> keyIterator = keys.iterator();
+            for (T object : objects) {
+                Bson key = keyIterator.next();
+                writes.add(new UpdateOneModel<>(key, upsertUpdate(codec, object, key), UPSERT));
+            }
+            if (options.containsKey("MongoDB.session"))
+                collection.bulkWrite((ClientSession) options.get("MongoDB.session"), writes);
+            else
+                collection.bulkWrite(writes);
+        } catch (BSONException e) {
+            throw unwrap(e);
+        } finally {
+            for (T object : locked) {
+                object.unlockWrite();
+            }
         }
 
     }
 
     @Override
-    public <T extends BaseModel> void save(T object, Class<T> modelClass) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException {
+    public <T extends BaseModel> void save(T object, Class<T> modelClass) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
         this.saveToDatabase(object, modelClass, new HashMap<>());
     }
 
     @Override
-    public <T extends BaseModel> void save(T object, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException {
+    public <T extends BaseModel> void save(T object, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
         this.saveToDatabase(object, modelClass, options);
     }
 
-    protected <T extends BaseModel> void saveToDatabase(T object, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException {
+    protected <T extends BaseModel> void saveToDatabase(T object, Class<T> modelClass, Map<String, Object> options) throws NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, NotConnectedToDatabaseException, ModelNotInitializedException {
         if (!connected)
             throw new NotConnectedToDatabaseException();
-        Document serializedObject = serialize(modelClass, object);
-        Document document = serializedObject.get("value", Document.class);
-        Document key = serializedObject.get("key", Document.class);
+        Bson key = keyFilter(this.getModelMetadata(modelClass), object);
+        MongoCollection<T> collection = this.getCollection(modelClass);
+        MongoModelCodec<T> codec = this.codecProvider.get(modelClass);
         object.lockWrite();
-        if (options.containsKey("MongoDB.session"))
-            this.collections.get(modelClass).updateOne((ClientSession) options.get("MongoDB.session"),key, new Document("$set", document), new UpdateOptions().upsert( true ));
-        else
-            this.collections.get(modelClass).updateOne(key, new Document("$set", document), new UpdateOptions().upsert( true ));
-        object.unlockWrite();
+        try {
+            Bson update = upsertUpdate(codec, object, key);
+            if (options.containsKey("MongoDB.session"))
+                collection.updateOne((ClientSession) options.get("MongoDB.session"), key, update, UPSERT);
+            else
+                collection.updateOne(key, update, UPSERT);
+        } catch (BSONException e) {
+            throw unwrap(e);
+        } finally {
+            object.unlockWrite();
+        }
 
     }
 
     @Override
-    public <T extends BaseModel> void delete(T object, Class<T> modelClass) throws NotConnectedToDatabaseException, NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException {
+    public <T extends BaseModel> void delete(T object, Class<T> modelClass) throws NotConnectedToDatabaseException, NoSerializerFoundException, InstantiationException, IllegalAccessException, InvocationTargetException, ModelNotInitializedException {
         if (!connected)
             throw new NotConnectedToDatabaseException();
+        Bson key = keyFilter(this.getModelMetadata(modelClass), object);
+        MongoCollection<T> collection = this.getCollection(modelClass);
         object.lockWrite();
-        Document key = serialize(modelClass, object).get("key", Document.class);
-        this.collections.get(modelClass).deleteOne(key);
-        object.unlockWrite();
+        try {
+            collection.deleteOne(key);
+        } finally {
+            object.unlockWrite();
+        }
     }
 
     @Override
@@ -339,6 +1416,7 @@ public class MongoDB extends BasicDatabase {
     @Override
     public void terminateConnection() throws NotConnectedToDatabaseException {
         if (connected) {
+            this.backfill.flush();
             this.client.close();
             this.connected = false;
         }
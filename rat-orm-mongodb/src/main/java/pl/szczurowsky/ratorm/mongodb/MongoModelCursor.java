@@ -0,0 +1,79 @@
+package pl.szczurowsky.ratorm.mongodb;
+
+import com.mongodb.client.MongoCursor;
+import org.bson.BSONException;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.cursor.ModelCursor;
+import pl.szczurowsky.ratorm.exception.CursorException;
+import pl.szczurowsky.ratorm.mongodb.codec.FetchContext;
+import pl.szczurowsky.ratorm.mongodb.codec.MongoModelCodec;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Cursor decoding documents in batches. Foreign keys are resolved once per batch,
+ * only models of current batch are kept in memory
+ * @param <T> Model class
+ */
+class MongoModelCursor<T extends BaseModel> implements ModelCursor<T> {
+
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    private final MongoDB database;
+
+    private final MongoModelCodec<T> codec;
+
+    private final MongoCursor<RawBsonDocument> cursor;
+
+    private final int batchSize;
+
+    private final Queue<T> batch;
+
+    MongoModelCursor(MongoDB database, MongoModelCodec<T> codec, MongoCursor<RawBsonDocument> cursor, int batchSize) {
+        this.database = database;
+        this.codec = codec;
+        this.cursor = cursor;
+        this.batchSize = batchSize;
+        this.batch = new ArrayDeque<>(batchSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (batch.isEmpty())
+            this.readBatch();
+        return !batch.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+        return batch.poll();
+    }
+
+    private void readBatch() {
+        FetchContext context = new FetchContext();
+        MongoModelCodec<T> batchCodec = codec.withContext(context);
+        try {
+            while (batch.size() < batchSize && cursor.hasNext())
+                batch.add(batchCodec.decode(cursor.next().asBsonReader(), DECODER_CONTEXT));
+            if (batch.isEmpty())
+                return;
+            this.database.resolveReferences(context);
+            this.database.queueBackfill(codec.getMetadata(), context);
+        } catch (BSONException e) {
+            throw new CursorException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        } catch (Exception e) {
+            throw new CursorException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
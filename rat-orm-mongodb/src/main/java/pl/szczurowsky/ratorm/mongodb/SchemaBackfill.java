@@ -0,0 +1,136 @@
+package pl.szczurowsky.ratorm.mongodb;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.BsonDocument;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.exception.ModelNotInitializedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Queue of updates setting fields missing in stored documents, written in bulk off the read path.
+ * Failed batches are logged, counted and dropped, their documents are queued again when they're read next time
+ */
+class SchemaBackfill {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaBackfill.class.getName());
+
+    private static final BulkWriteOptions WRITE_OPTIONS = new BulkWriteOptions().ordered(false);
+
+    private final MongoDB database;
+
+    /**
+     * Queued updates by model class
+     */
+    private final Map<Class<? extends BaseModel>, Queue<UpdateOneModel<BsonDocument>>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Flush was submitted to executor and didn't start yet
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Executor writing updates, own daemon thread created on first flush unless it's set
+     */
+    private volatile Executor executor;
+
+    /**
+     * Maximum number of updates in one bulk write
+     */
+    private volatile int batchSize = 500;
+
+    /**
+     * Number of updates dropped because their batch failed
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    SchemaBackfill(MongoDB database) {
+        this.database = database;
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    long getFailed() {
+        return this.failed.get();
+    }
+
+    void add(Class<? extends BaseModel> modelClass, UpdateOneModel<BsonDocument> update) {
+        this.pending.computeIfAbsent(modelClass, key -> new ConcurrentLinkedQueue<>()).add(update);
+    }
+
+    /**
+     * Flush queued updates on executor, unless flush is already waiting for it
+     */
+    void schedule() {
+        if (this.scheduled.compareAndSet(false, true))
+            this.executor().execute(() -> {
+                // Updates queued while flushing schedule next flush
+                this.scheduled.set(false);
+                this.flush();
+            });
+    }
+
+    private synchronized Executor executor() {
+        if (this.executor == null)
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ratorm-backfill");
+                thread.setDaemon(true);
+                return thread;
+            });
+        return this.executor;
+    }
+
+    /**
+     * Write queued updates on calling thread
+     * @return Number of updated documents
+     */
+    long flush() {
+        long modified = 0;
+        for (Map.Entry<Class<? extends BaseModel>, Queue<UpdateOneModel<BsonDocument>>> entry : this.pending.entrySet()) {
+            List<WriteModel<BsonDocument>> batch = new ArrayList<>();
+            UpdateOneModel<BsonDocument> update;
+            while ((update = entry.getValue().poll()) != null) {
+                batch.add(update);
+                if (batch.size() >= this.batchSize) {
+                    modified += this.write(entry.getKey(), batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty())
+                modified += this.write(entry.getKey(), batch);
+        }
+        return modified;
+    }
+
+    private long write(Class<? extends BaseModel> modelClass, List<WriteModel<BsonDocument>> batch) {
+        try {
+            MongoCollection<BsonDocument> collection = this.database.getCollection(modelClass).withDocumentClass(BsonDocument.class);
+            return collection.bulkWrite(batch, WRITE_OPTIONS).getModifiedCount();
+        } catch (MongoException | ModelNotInitializedException | IllegalStateException e) {
+            this.failed.addAndGet(batch.size());
+            LOGGER.log(Level.WARNING, "Cannot write " + batch.size() + " missing fields updates of " + modelClass.getName(), e);
+            return 0;
+        }
+    }
+}
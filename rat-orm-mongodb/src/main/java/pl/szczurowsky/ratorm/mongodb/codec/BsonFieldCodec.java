@@ -0,0 +1,438 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import org.bson.*;
+import org.bson.types.Decimal128;
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+import pl.szczurowsky.ratorm.enums.FieldKind;
+import pl.szczurowsky.ratorm.exception.NoSerializerFoundException;
+import pl.szczurowsky.ratorm.exception.SerializerException;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.mongodb.MongoDB;
+import pl.szczurowsky.ratorm.mongodb.enums.StorageMode;
+import pl.szczurowsky.ratorm.serializers.BigIntSerializer;
+import pl.szczurowsky.ratorm.serializers.DateSerializer;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+import pl.szczurowsky.ratorm.serializers.UuidSerializer;
+import pl.szczurowsky.ratorm.serializers.basic.*;
+import pl.szczurowsky.ratorm.serializers.stream.StreamSerializer;
+import pl.szczurowsky.ratorm.serializers.stream.StringStreamSerializer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Writes and reads values of model fields as BSON.
+ * Reader accepts both string-encoded (legacy) and native values regardless of storage mode.
+ * Values of types with serializer registered by user are always written by it
+ */
+public class BsonFieldCodec {
+
+    /**
+     * Default serializers of types written natively
+     */
+    private static final Set<Class<?>> NATIVE_SERIALIZERS = new HashSet<>(Arrays.asList(
+            IntegerSerializer.class, ShortSerializer.class, LongSerializer.class, DoubleSerializer.class, FloatSerializer.class,
+            BooleanSerializer.class, UuidSerializer.class, BigIntSerializer.class, DateSerializer.class
+    ));
+
+    /**
+     * Database owning serializers
+     */
+    private final MongoDB database;
+
+    public BsonFieldCodec(MongoDB database) {
+        this.database = database;
+    }
+
+    /**
+     * Write value of field read from model, primitives are written without boxing
+     * @param writer Writer positioned after field name
+     * @param field Metadata of field
+     * @param model Model instance
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    public void writeField(BsonWriter writer, ModelFieldMetadata field, Object model) throws InvocationTargetException {
+        if (storageMode(field) != StorageMode.STRINGS && field.getKind() == FieldKind.VALUE && !isCustom(field.getStreamSerializer()) && isNative(field.getSerializer())) {
+            Class<?> type = field.getType();
+            FieldAccessor accessor = field.getAccessor();
+            if (type == int.class || type == short.class || type == byte.class) {
+                writer.writeInt32(accessor.getInt(model));
+                return;
+            }
+            if (type == long.class) {
+                writer.writeInt64(accessor.getLong(model));
+                return;
+            }
+            if (type == double.class || type == float.class) {
+                writer.writeDouble(accessor.getDouble(model));
+                return;
+            }
+            if (type == boolean.class) {
+                writer.writeBoolean(accessor.getBoolean(model));
+                return;
+            }
+        }
+        writeValue(writer, field, field.getAccessor().get(model));
+    }
+
+    /**
+     * Write value of field
+     * @param writer Writer positioned after field name
+     * @param field Metadata of field
+     * @param value Not serialized value
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    public void writeValue(BsonWriter writer, ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        StorageMode storageMode = storageMode(field);
+        if (isCustom(field.getStreamSerializer())) {
+            writeStream(writer, field.getStreamSerializer(), value);
+            return;
+        }
+        if (storageMode != StorageMode.STRINGS && field.getKind() == FieldKind.VALUE && (value == null || isNative(field.getSerializer())) && writeNative(writer, value))
+            return;
+        if (value == null && (field.getKind() == FieldKind.COLLECTION || field.getKind() == FieldKind.MAP)) {
+            writer.writeNull();
+            return;
+        }
+        if (storageMode == StorageMode.NATIVE_DOCUMENTS && value != null && field.getElementType() != null) {
+            if (field.getKind() == FieldKind.COLLECTION) {
+                writeCollection(writer, field.getElementType(), (Collection<?>) value);
+                return;
+            }
+            if (field.getKind() == FieldKind.MAP && field.getKeyType() != null && writeMap(writer, field.getKeyType(), field.getElementType(), (Map<?, ?>) value))
+                return;
+        }
+        String serialized = database.serializeField(field, value);
+        if (serialized == null)
+            writer.writeNull();
+        else
+            writer.writeString(serialized);
+    }
+
+    /**
+     * Load model referenced by foreign key while decoding, models loaded by fetch are reused
+     * @param field Foreign key field
+     * @param serializedKey Foreign key as stored in database
+     * @param context Context of fetch
+     * @return Referenced model or null when it doesn't exist
+     * @throws InvocationTargetException Serializer or query failed
+     * @throws InstantiationException Referenced model wasn't able to be created
+     */
+    public Object loadReference(ModelFieldMetadata field, String serializedKey, FetchContext context) throws InvocationTargetException, InstantiationException {
+        return database.loadReference(field, serializedKey, context);
+    }
+
+    /**
+     * Storage mode of field. Identifier of document is always stored natively, it has to have exactly one stored form
+     */
+    private StorageMode storageMode(ModelFieldMetadata field) {
+        StorageMode storageMode = database.getStorageMode();
+        if (storageMode == StorageMode.STRINGS && field.getColumnName().equals(MongoDB.ID_COLUMN))
+            return StorageMode.NATIVE_VALUES;
+        return storageMode;
+    }
+
+    private void writeCollection(BsonWriter writer, Class<?> elementType, Collection<?> collection) throws InvocationTargetException {
+        writer.writeStartArray();
+        for (Object element : collection)
+            writeElement(writer, elementType, element);
+        writer.writeEndArray();
+    }
+
+    /**
+     * Write map as embedded document
+     * @return false when some key can't be used as name of field, map has to be stored as string then
+     */
+    private boolean writeMap(BsonWriter writer, Class<?> keyType, Class<?> valueType, Map<?, ?> map) throws InvocationTargetException {
+        List<String> names = new ArrayList<>(map.size());
+        for (Object key : map.keySet()) {
+            String name = serializeElement(keyType, key);
+            if (name == null || name.indexOf('.') >= 0 || name.startsWith("$"))
+                return false;
+            names.add(name);
+        }
+        writer.writeStartDocument();
+        Iterator<String> name = names.iterator();
+        for (Object value : map.values()) {
+            writer.writeName(name.next());
+            writeElement(writer, valueType, value);
+        }
+        writer.writeEndDocument();
+        return true;
+    }
+
+    private void writeElement(BsonWriter writer, Class<?> type, Object element) throws InvocationTargetException {
+        StreamSerializer<?> streamSerializer = database.getSerializers().getStream(type);
+        if (isCustom(streamSerializer)) {
+            writeStream(writer, streamSerializer, element);
+            return;
+        }
+        if ((element == null || isNative(database.getSerializers().getBound(type))) && writeNative(writer, element))
+            return;
+        String serialized = serializeElement(type, element);
+        if (serialized == null)
+            writer.writeNull();
+        else
+            writer.writeString(serialized);
+    }
+
+    /**
+     * Is serializer default one of its type, user's serializers replacing it take precedence over native values
+     */
+    private boolean isNative(Serializer<?> serializer) {
+        return serializer == null || NATIVE_SERIALIZERS.contains(serializer.getClass());
+    }
+
+    /**
+     * Is serializer registered as streaming one, not adapter of string serializer
+     */
+    private boolean isCustom(StreamSerializer<?> streamSerializer) {
+        return streamSerializer != null && !(streamSerializer instanceof StringStreamSerializer);
+    }
+
+    private void writeStream(BsonWriter writer, StreamSerializer<?> streamSerializer, Object value) throws InvocationTargetException {
+        try {
+            ((StreamSerializer<Object>) streamSerializer).write(new BsonValueWriter(writer), value);
+        } catch (SerializerException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private Object readStream(BsonReader reader, StreamSerializer<?> streamSerializer) throws InvocationTargetException {
+        try {
+            return streamSerializer.read(new BsonValueReader(reader));
+        } catch (SerializerException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private String serializeElement(Class<?> type, Object element) throws InvocationTargetException {
+        try {
+            return database.getSerializers().serialize(type, element);
+        } catch (NoSerializerFoundException | SerializerException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private Object deserializeElement(Class<?> type, String element) throws InvocationTargetException {
+        if (type == null)
+            return element;
+        try {
+            return database.getSerializers().deserialize(type, element);
+        } catch (NoSerializerFoundException | ClassNotFoundException e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private boolean writeNative(BsonWriter writer, Object value) {
+        if (value == null)
+            writer.writeNull();
+        else if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+            writer.writeInt32(((Number) value).intValue());
+        else if (value instanceof Long)
+            writer.writeInt64((Long) value);
+        else if (value instanceof Double || value instanceof Float)
+            writer.writeDouble(((Number) value).doubleValue());
+        else if (value instanceof Boolean)
+            writer.writeBoolean((Boolean) value);
+        else if (value instanceof UUID)
+            writer.writeBinaryData(new BsonBinary((UUID) value));
+        else if (value instanceof BigInteger)
+            writeBigInteger(writer, (BigInteger) value);
+        else if (value instanceof Date)
+            writer.writeDateTime(((Date) value).getTime());
+        else
+            return false;
+        return true;
+    }
+
+    private void writeBigInteger(BsonWriter writer, BigInteger value) {
+        try {
+            writer.writeDecimal128(new Decimal128(new BigDecimal(value)));
+        } catch (NumberFormatException e) {
+            // More than 34 digits, doesn't fit in decimal128
+            writer.writeBinaryData(new BsonBinary(value.toByteArray()));
+        }
+    }
+
+    /**
+     * Convert value of field to BSON value, used in filters
+     * @param field Metadata of field
+     * @param value Not serialized value
+     * @return BSON value as it's stored in database
+     * @throws InvocationTargetException Serializer wasn't able to serialize value
+     */
+    public BsonValue toBsonValue(ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        BsonDocumentWriter writer = new BsonDocumentWriter(new BsonDocument());
+        writer.writeStartDocument();
+        writer.writeName("value");
+        writeValue(writer, field, value);
+        writer.writeEndDocument();
+        return writer.getDocument().get("value");
+    }
+
+    /**
+     * Read value of field
+     * @param reader Reader positioned after field name
+     * @param field Metadata of field
+     * @return Deserialized value or null
+     * @throws InvocationTargetException Serializer wasn't able to deserialize value
+     */
+    public Object read(BsonReader reader, ModelFieldMetadata field) throws InvocationTargetException {
+        if (isCustom(field.getStreamSerializer()))
+            return readStream(reader, field.getStreamSerializer());
+        switch (reader.getCurrentBsonType()) {
+            case STRING:
+                return asFieldType(field, database.deserializeField(field, reader.readString()));
+            case ARRAY:
+                return readCollection(reader, field);
+            case DOCUMENT:
+                return readMap(reader, field);
+            default:
+                return readNative(reader, field.getType());
+        }
+    }
+
+    /**
+     * Copy collection or map deserialized from string to type of field, serializers create lists and hash maps
+     */
+    private Object asFieldType(ModelFieldMetadata field, Object value) throws InvocationTargetException {
+        if (value == null || field.getType().isInstance(value))
+            return value;
+        if (field.getKind() == FieldKind.COLLECTION) {
+            Collection<Object> collection = newCollection(field.getType());
+            collection.addAll((Collection<?>) value);
+            return collection;
+        }
+        if (field.getKind() == FieldKind.MAP) {
+            Map<Object, Object> map = newMap(field.getType());
+            map.putAll((Map<?, ?>) value);
+            return map;
+        }
+        return value;
+    }
+
+    private Collection<Object> readCollection(BsonReader reader, ModelFieldMetadata field) throws InvocationTargetException {
+        Collection<Object> collection = newCollection(field.getType());
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT)
+            collection.add(readElement(reader, field.getElementType()));
+        reader.readEndArray();
+        return collection;
+    }
+
+    private Map<Object, Object> readMap(BsonReader reader, ModelFieldMetadata field) throws InvocationTargetException {
+        Map<Object, Object> map = newMap(field.getType());
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            Object key = deserializeElement(field.getKeyType(), reader.readName());
+            map.put(key, readElement(reader, field.getElementType()));
+        }
+        reader.readEndDocument();
+        return map;
+    }
+
+    private Object readElement(BsonReader reader, Class<?> type) throws InvocationTargetException {
+        StreamSerializer<?> streamSerializer = type == null ? null : database.getSerializers().getStream(type);
+        if (isCustom(streamSerializer))
+            return readStream(reader, streamSerializer);
+        if (reader.getCurrentBsonType() == BsonType.STRING)
+            return deserializeElement(type, reader.readString());
+        return readNative(reader, type == null ? Object.class : type);
+    }
+
+    private Object readNative(BsonReader reader, Class<?> type) {
+        switch (reader.getCurrentBsonType()) {
+            case NULL:
+                reader.readNull();
+                return null;
+            case INT32:
+                return convertNumber(type, reader.readInt32());
+            case INT64:
+                return convertNumber(type, reader.readInt64());
+            case DOUBLE:
+                return convertNumber(type, reader.readDouble());
+            case BOOLEAN:
+                return reader.readBoolean();
+            case DATE_TIME:
+                return new Date(reader.readDateTime());
+            case DECIMAL128:
+                BigDecimal decimal = reader.readDecimal128().bigDecimalValue();
+                return type == BigInteger.class ? decimal.toBigIntegerExact() : convertNumber(type, decimal);
+            case BINARY:
+                return readBinary(reader.readBinaryData(), type);
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    /**
+     * Decode binary by declared type: UUID subtypes for UUID fields, BigInteger bytes for BigInteger fields
+     * and raw bytes when type isn't known. Binary not matching field is skipped like other unknown values
+     */
+    private Object readBinary(BsonBinary binary, Class<?> type) {
+        boolean uuid = binary.getType() == BsonBinarySubType.UUID_STANDARD.getValue() || binary.getType() == BsonBinarySubType.UUID_LEGACY.getValue();
+        if (uuid && type.isAssignableFrom(UUID.class))
+            return binary.getType() == BsonBinarySubType.UUID_STANDARD.getValue() ? binary.asUuid() : binary.asUuid(UuidRepresentation.JAVA_LEGACY);
+        if (!uuid && type == BigInteger.class)
+            return new BigInteger(binary.getData());
+        if (type.isAssignableFrom(byte[].class))
+            return binary.getData();
+        return null;
+    }
+
+    /**
+     * Create empty collection assignable to field type
+     */
+    private Collection<Object> newCollection(Class<?> type) throws InvocationTargetException {
+        if (type.isAssignableFrom(ArrayList.class))
+            return new ArrayList<>();
+        if (type.isAssignableFrom(LinkedHashSet.class))
+            return new LinkedHashSet<>();
+        if (type.isAssignableFrom(TreeSet.class))
+            return new TreeSet<>();
+        if (type.isAssignableFrom(ArrayDeque.class))
+            return new ArrayDeque<>();
+        return (Collection<Object>) newInstance(type);
+    }
+
+    /**
+     * Create empty map assignable to field type
+     */
+    private Map<Object, Object> newMap(Class<?> type) throws InvocationTargetException {
+        if (type.isAssignableFrom(HashMap.class))
+            return new HashMap<>();
+        if (type.isAssignableFrom(TreeMap.class))
+            return new TreeMap<>();
+        return (Map<Object, Object>) newInstance(type);
+    }
+
+    private Object newInstance(Class<?> type) throws InvocationTargetException {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new InvocationTargetException(e, "Cannot create instance of " + type.getName());
+        }
+    }
+
+    private Object convertNumber(Class<?> type, Number number) {
+        if (type == int.class || type == Integer.class)
+            return number.intValue();
+        if (type == long.class || type == Long.class)
+            return number.longValue();
+        if (type == double.class || type == Double.class)
+            return number.doubleValue();
+        if (type == float.class || type == Float.class)
+            return number.floatValue();
+        if (type == short.class || type == Short.class)
+            return number.shortValue();
+        if (type == byte.class || type == Byte.class)
+            return number.byteValue();
+        if (type == BigInteger.class)
+            return number instanceof BigDecimal ? ((BigDecimal) number).toBigInteger() : BigInteger.valueOf(number.longValue());
+        return number;
+    }
+}
@@ -0,0 +1,114 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import pl.szczurowsky.ratorm.enums.ValueType;
+import pl.szczurowsky.ratorm.serializers.stream.ValueReader;
+
+/**
+ * Value reader backed by BSON reader
+ */
+public class BsonValueReader implements ValueReader {
+
+    private final BsonReader reader;
+
+    public BsonValueReader(BsonReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ValueType getCurrentType() {
+        switch (reader.getCurrentBsonType()) {
+            case NULL:
+                return ValueType.NULL;
+            case STRING:
+                return ValueType.STRING;
+            case INT32:
+                return ValueType.INT;
+            case INT64:
+                return ValueType.LONG;
+            case DOUBLE:
+                return ValueType.DOUBLE;
+            case BOOLEAN:
+                return ValueType.BOOLEAN;
+            case BINARY:
+                return ValueType.BINARY;
+            case ARRAY:
+                return ValueType.ARRAY;
+            case DOCUMENT:
+                return ValueType.DOCUMENT;
+            default:
+                return ValueType.OTHER;
+        }
+    }
+
+    @Override
+    public void readNull() {
+        reader.readNull();
+    }
+
+    @Override
+    public String readString() {
+        return reader.readString();
+    }
+
+    @Override
+    public int readInt() {
+        return reader.readInt32();
+    }
+
+    @Override
+    public long readLong() {
+        return reader.readInt64();
+    }
+
+    @Override
+    public double readDouble() {
+        return reader.readDouble();
+    }
+
+    @Override
+    public boolean readBoolean() {
+        return reader.readBoolean();
+    }
+
+    @Override
+    public byte[] readBinary() {
+        return reader.readBinaryData().getData();
+    }
+
+    @Override
+    public void readStartArray() {
+        reader.readStartArray();
+    }
+
+    @Override
+    public void readEndArray() {
+        reader.readEndArray();
+    }
+
+    @Override
+    public void readStartDocument() {
+        reader.readStartDocument();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return reader.readBsonType() != BsonType.END_OF_DOCUMENT;
+    }
+
+    @Override
+    public String readName() {
+        return reader.readName();
+    }
+
+    @Override
+    public void readEndDocument() {
+        reader.readEndDocument();
+    }
+
+    @Override
+    public void skipValue() {
+        reader.skipValue();
+    }
+}
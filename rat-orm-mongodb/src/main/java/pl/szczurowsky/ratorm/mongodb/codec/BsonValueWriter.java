@@ -0,0 +1,77 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import org.bson.BsonBinary;
+import org.bson.BsonWriter;
+import pl.szczurowsky.ratorm.serializers.stream.ValueWriter;
+
+/**
+ * Value writer backed by BSON writer
+ */
+public class BsonValueWriter implements ValueWriter {
+
+    private final BsonWriter writer;
+
+    public BsonValueWriter(BsonWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void writeNull() {
+        writer.writeNull();
+    }
+
+    @Override
+    public void writeString(String value) {
+        writer.writeString(value);
+    }
+
+    @Override
+    public void writeInt(int value) {
+        writer.writeInt32(value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        writer.writeInt64(value);
+    }
+
+    @Override
+    public void writeDouble(double value) {
+        writer.writeDouble(value);
+    }
+
+    @Override
+    public void writeBoolean(boolean value) {
+        writer.writeBoolean(value);
+    }
+
+    @Override
+    public void writeBinary(byte[] value) {
+        writer.writeBinaryData(new BsonBinary(value));
+    }
+
+    @Override
+    public void writeStartArray() {
+        writer.writeStartArray();
+    }
+
+    @Override
+    public void writeEndArray() {
+        writer.writeEndArray();
+    }
+
+    @Override
+    public void writeStartDocument() {
+        writer.writeStartDocument();
+    }
+
+    @Override
+    public void writeName(String name) {
+        writer.writeName(name);
+    }
+
+    @Override
+    public void writeEndDocument() {
+        writer.writeEndDocument();
+    }
+}
@@ -0,0 +1,207 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.session.IdentityMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of one fetch: foreign keys waiting for batched resolution, lazy foreign keys, models decoded from incomplete documents
+ * and models already loaded by this fetch or fetches resolving its foreign keys.
+ * Models can be decoded by many threads, lists are read after decoding finishes
+ */
+public class FetchContext {
+
+    /**
+     * Foreign key read from document, resolved after whole result set is decoded
+     */
+    public static final class Reference {
+        private final BaseModel model;
+        private final ModelFieldMetadata field;
+        private final String serializedKey;
+
+        private Reference(BaseModel model, ModelFieldMetadata field, String serializedKey) {
+            this.model = model;
+            this.field = field;
+            this.serializedKey = serializedKey;
+        }
+
+        /**
+         * Model holding foreign key
+         * @return Model
+         */
+        public BaseModel getModel() {
+            return model;
+        }
+
+        /**
+         * Foreign key field
+         * @return Metadata of field
+         */
+        public ModelFieldMetadata getField() {
+            return field;
+        }
+
+        /**
+         * Foreign key as stored in database, name of primary key and serialized value separated by #__#
+         * @return Serialized foreign key
+         */
+        public String getSerializedKey() {
+            return serializedKey;
+        }
+    }
+
+    /**
+     * Model decoded from document which lacks some fields, missing fields hold default values
+     */
+    public static final class Incomplete {
+        private final BaseModel model;
+        private final List<ModelFieldMetadata> missing;
+
+        private Incomplete(BaseModel model, List<ModelFieldMetadata> missing) {
+            this.model = model;
+            this.missing = missing;
+        }
+
+        public BaseModel getModel() {
+            return model;
+        }
+
+        /**
+         * Fields not stored in document
+         * @return Metadata of fields
+         */
+        public List<ModelFieldMetadata> getMissing() {
+            return missing;
+        }
+    }
+
+    /**
+     * Loaded models by class and primary key, shared with nested fetches
+     */
+    private final IdentityMap loaded;
+
+    /**
+     * Models created by constructor which wait for their foreign keys, by class and primary key, shared with nested fetches
+     */
+    private final Set<List<Object>> constructing;
+
+    private final List<Reference> references = new ArrayList<>();
+
+    private final List<ForeignKeyReference<?>> lazyReferences = new ArrayList<>();
+
+    private final List<Incomplete> incomplete = new ArrayList<>();
+
+    /**
+     * Fetch reads only some fields, models are neither shared nor backfilled
+     */
+    private boolean partial;
+
+    public FetchContext() {
+        this(new IdentityMap());
+    }
+
+    /**
+     * Create context reusing models of identity map, e.g. of session
+     * @param loaded Identity map receiving loaded models
+     */
+    public FetchContext(IdentityMap loaded) {
+        this(loaded, ConcurrentHashMap.newKeySet());
+    }
+
+    private FetchContext(IdentityMap loaded, Set<List<Object>> constructing) {
+        this.loaded = loaded;
+        this.constructing = constructing;
+    }
+
+    /**
+     * Create context of fetch resolving foreign keys of this fetch, loaded models are shared
+     * @return Nested context
+     */
+    public FetchContext nested() {
+        return new FetchContext(loaded, constructing);
+    }
+
+    /**
+     * Mark fetch as reading only some fields. Nested fetches read whole models
+     * @return This context
+     */
+    public FetchContext partial() {
+        this.partial = true;
+        return this;
+    }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    synchronized void addReference(BaseModel model, ModelFieldMetadata field, String serializedKey) {
+        this.references.add(new Reference(model, field, serializedKey));
+    }
+
+    synchronized void addLazyReference(ForeignKeyReference<?> reference) {
+        this.lazyReferences.add(reference);
+    }
+
+    synchronized void addIncomplete(BaseModel model, List<ModelFieldMetadata> missing) {
+        this.incomplete.add(new Incomplete(model, missing));
+    }
+
+    /**
+     * Register decoded model
+     * @return Instance already loaded with the same key or provided model
+     */
+    synchronized <T extends BaseModel> T addLoaded(Class<T> modelClass, Object primaryKey, T model) {
+        return this.loaded.putIfAbsent(modelClass, primaryKey, model);
+    }
+
+    /**
+     * Get model loaded during fetch
+     * @param modelClass Model class
+     * @param primaryKey Value of primary key
+     * @return Model or null when it wasn't loaded
+     */
+    public synchronized BaseModel getLoaded(Class<?> modelClass, Object primaryKey) {
+        return this.loaded.get((Class<BaseModel>) modelClass, primaryKey);
+    }
+
+    void startConstructing(Class<?> modelClass, Object primaryKey) {
+        this.constructing.add(Arrays.asList(modelClass, primaryKey));
+    }
+
+    void finishConstructing(Class<?> modelClass, Object primaryKey) {
+        this.constructing.remove(Arrays.asList(modelClass, primaryKey));
+    }
+
+    /**
+     * Is model created by constructor waiting for its foreign keys, it can't be referenced until it's created
+     * @param modelClass Model class
+     * @param primaryKey Value of primary key
+     * @return true when model is loading its foreign keys
+     */
+    public boolean isConstructing(Class<?> modelClass, Object primaryKey) {
+        return this.constructing.contains(Arrays.asList(modelClass, primaryKey));
+    }
+
+    public List<Reference> getReferences() {
+        return references;
+    }
+
+    /**
+     * Lazy foreign keys decoded during fetch, loaded without query when referenced model was loaded by fetch
+     * @return Lazy references
+     */
+    public List<ForeignKeyReference<?>> getLazyReferences() {
+        return lazyReferences;
+    }
+
+    public List<Incomplete> getIncomplete() {
+        return incomplete;
+    }
+}
@@ -0,0 +1,181 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import org.bson.BSONException;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.Model.ForeignKeyReference;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Driver codec encoding model directly to BSON stream and decoding it back, without intermediate documents.
+ * Checked exceptions of serializers are rethrown wrapped in {@link BSONException}
+ * @param <T> Model class
+ */
+public class MongoModelCodec<T extends BaseModel> implements Codec<T> {
+
+    /**
+     * Metadata of model
+     */
+    private final ModelMetadata<T> metadata;
+
+    /**
+     * Writer and reader of field values
+     */
+    private final BsonFieldCodec fieldCodec;
+
+    /**
+     * Context of fetch, null when codec is used outside of fetch and foreign keys are resolved eagerly
+     */
+    private final FetchContext context;
+
+    /**
+     * Column of primary key before it was moved to identifier, null when primary key wasn't moved
+     */
+    private final String legacyKeyColumn;
+
+    public MongoModelCodec(ModelMetadata<T> metadata, BsonFieldCodec fieldCodec) {
+        this(metadata, fieldCodec, null);
+    }
+
+    /**
+     * Create codec of model with primary key stored as identifier, documents not moved yet have generated
+     * identifier and primary key is read from old column
+     * @param metadata Metadata of model
+     * @param fieldCodec Writer and reader of field values
+     * @param legacyKeyColumn Column of primary key before it was moved to identifier, null when it wasn't moved
+     */
+    public MongoModelCodec(ModelMetadata<T> metadata, BsonFieldCodec fieldCodec, String legacyKeyColumn) {
+        this(metadata, fieldCodec, null, legacyKeyColumn);
+    }
+
+    private MongoModelCodec(ModelMetadata<T> metadata, BsonFieldCodec fieldCodec, FetchContext context, String legacyKeyColumn) {
+        this.metadata = metadata;
+        this.fieldCodec = fieldCodec;
+        this.context = context;
+        this.legacyKeyColumn = legacyKeyColumn;
+    }
+
+    /**
+     * Create codec bound to fetch. Foreign keys of models created by no-args constructor are deferred to context,
+     * models decoded from documents without some fields are collected in it
+     * @param context Context of fetch
+     * @return Codec bound to context
+     */
+    public MongoModelCodec<T> withContext(FetchContext context) {
+        return new MongoModelCodec<>(metadata, fieldCodec, context, legacyKeyColumn);
+    }
+
+    public ModelMetadata<T> getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, T model, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        try {
+            for (ModelFieldMetadata field : metadata.getFields()) {
+                writer.writeName(field.getColumnName());
+                fieldCodec.writeField(writer, field, model);
+            }
+        } catch (InvocationTargetException e) {
+            throw new BSONException("Cannot encode " + metadata.getModelClass().getName(), e);
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        int fieldCount = metadata.getFields().size();
+        int found = 0;
+        Object[] values = new Object[fieldCount];
+        boolean[] present = new boolean[fieldCount];
+        String[] deferredKeys = null;
+        boolean deferForeignKeys = context != null && !metadata.getInstantiator().isConstructorBound();
+        // Models created by constructor need referenced models first, they're loaded once document is read
+        boolean loadForeignKeys = context != null && !deferForeignKeys;
+        int primaryKeyIndex = metadata.getPrimaryKey().getIndex();
+        T model;
+        try {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                ModelFieldMetadata field = metadata.getField(name);
+                if (field == null || !field.getColumnName().equals(name)) {
+                    if (!name.equals(legacyKeyColumn) || present[primaryKeyIndex]) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    // Document not moved by moveKeysToId yet
+                    field = metadata.getPrimaryKey();
+                }
+                else if (field.isPrimaryKey() && legacyKeyColumn != null && reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+                    // Identifier generated by database, primary key is in old column
+                    reader.skipValue();
+                    continue;
+                }
+                if ((deferForeignKeys || loadForeignKeys) && field.isForeignKey() && !field.isLazy() && reader.getCurrentBsonType() == BsonType.STRING) {
+                    if (deferredKeys == null)
+                        deferredKeys = new String[fieldCount];
+                    deferredKeys[field.getIndex()] = reader.readString();
+                }
+                else
+                    values[field.getIndex()] = fieldCodec.read(reader, field);
+                if (!present[field.getIndex()]) {
+                    present[field.getIndex()] = true;
+                    found++;
+                }
+            }
+            reader.readEndDocument();
+            if (loadForeignKeys && deferredKeys != null) {
+                Object primaryKey = values[primaryKeyIndex];
+                context.startConstructing(metadata.getModelClass(), primaryKey);
+                try {
+                    for (int i = 0; i < fieldCount; i++)
+                        if (deferredKeys[i] != null)
+                            values[i] = fieldCodec.loadReference(metadata.getFields().get(i), deferredKeys[i], context);
+                } finally {
+                    context.finishConstructing(metadata.getModelClass(), primaryKey);
+                }
+            }
+            model = metadata.getInstantiator().newInstance(values);
+        } catch (InvocationTargetException | InstantiationException e) {
+            throw new BSONException("Cannot decode " + metadata.getModelClass().getName(), e);
+        }
+        if (context != null) {
+            // Partial models aren't shared, instance loaded earlier wins and its state isn't overwritten
+            T loaded = context.isPartial() ? model : context.addLoaded(metadata.getModelClass(), values[primaryKeyIndex], model);
+            if (loaded != model)
+                return loaded;
+            for (ModelFieldMetadata field : metadata.getFields())
+                if (field.isLazy() && values[field.getIndex()] != null)
+                    context.addLazyReference((ForeignKeyReference<?>) values[field.getIndex()]);
+            if (deferForeignKeys && deferredKeys != null)
+                for (int i = 0; i < fieldCount; i++)
+                    if (deferredKeys[i] != null)
+                        context.addReference(model, metadata.getFields().get(i), deferredKeys[i]);
+            if (found < fieldCount && !context.isPartial()) {
+                List<ModelFieldMetadata> missing = new ArrayList<>(fieldCount - found);
+                for (ModelFieldMetadata field : metadata.getFields())
+                    if (!present[field.getIndex()])
+                        missing.add(field);
+                context.addIncomplete(model, missing);
+            }
+        }
+        return model;
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return metadata.getModelClass();
+    }
+}
@@ -0,0 +1,68 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provider of codecs for initialized models
+ */
+public class MongoModelCodecProvider implements CodecProvider {
+
+    /**
+     * Writer and reader of field values
+     */
+    private final BsonFieldCodec fieldCodec;
+
+    /**
+     * Codecs of registered models
+     */
+    private final Map<Class<?>, MongoModelCodec<?>> codecs = new ConcurrentHashMap<>();
+
+    public MongoModelCodecProvider(BsonFieldCodec fieldCodec) {
+        this.fieldCodec = fieldCodec;
+    }
+
+    /**
+     * Create codec of model, replaces codec registered for the same class
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @return Codec of model
+     */
+    public <T extends BaseModel> MongoModelCodec<T> register(ModelMetadata<T> metadata) {
+        return this.register(metadata, null);
+    }
+
+    /**
+     * Create codec of model with primary key moved to identifier, replaces codec registered for the same class
+     * @param <T> Model class
+     * @param metadata Metadata of model
+     * @param legacyKeyColumn Column of primary key before it was moved to identifier, null when it wasn't moved
+     * @return Codec of model
+     */
+    public <T extends BaseModel> MongoModelCodec<T> register(ModelMetadata<T> metadata, String legacyKeyColumn) {
+        MongoModelCodec<T> codec = new MongoModelCodec<>(metadata, fieldCodec, legacyKeyColumn);
+        this.codecs.put(metadata.getModelClass(), codec);
+        return codec;
+    }
+
+    /**
+     * Get codec of registered model
+     * @param <T> Model class
+     * @param modelClass Model class
+     * @return Codec or null when model isn't registered
+     */
+    public <T extends BaseModel> MongoModelCodec<T> get(Class<T> modelClass) {
+        return (MongoModelCodec<T>) this.codecs.get(modelClass);
+    }
+
+    @Override
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        return (Codec<T>) this.codecs.get(clazz);
+    }
+}
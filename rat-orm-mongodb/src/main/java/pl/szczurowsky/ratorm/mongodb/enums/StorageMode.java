@@ -0,0 +1,21 @@
+package pl.szczurowsky.ratorm.mongodb.enums;
+
+/**
+ * How values of model fields are stored in documents.
+ * Reading always understands every mode, so collections can be migrated by re-saving models.
+ */
+public enum StorageMode {
+    /**
+     * Every value stored as string produced by serializer (format of RatORM 1.4 and older)
+     */
+    STRINGS,
+    /**
+     * Numbers, booleans, UUIDs and big integers stored as BSON int32/int64/double/boolean/binary/decimal128
+     * unless serializer of type was registered by user
+     */
+    NATIVE_VALUES,
+    /**
+     * Native values, collections stored as BSON arrays and maps as embedded documents
+     */
+    NATIVE_DOCUMENTS
+}
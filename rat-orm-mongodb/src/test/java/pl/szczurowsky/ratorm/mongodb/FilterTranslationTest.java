@@ -0,0 +1,165 @@
+package pl.szczurowsky.ratorm.mongodb;
+
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.enums.FilterExpression;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.mongodb.codec.BsonFieldCodec;
+import pl.szczurowsky.ratorm.mongodb.codec.MongoModelCodec;
+import pl.szczurowsky.ratorm.mongodb.enums.StorageMode;
+import pl.szczurowsky.ratorm.query.Condition;
+
+public class FilterTranslationTest {
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField(name = "user_age")
+        Integer age;
+        @ModelField
+        String name;
+    }
+
+    private static final String CONVERTED = "{\"$convert\": {\"input\": \"$user_age\", \"to\": \"decimal\", \"onError\": null, \"onNull\": null}}";
+
+    private static String stringForm(String operator, String number) {
+        return "{\"user_age\": {\"$type\": \"string\"}, \"$expr\": {\"$and\": ["
+                + "{\"$ne\": [" + CONVERTED + ", null]}, "
+                + "{\"" + operator + "\": [" + CONVERTED + ", {\"$numberDecimal\": \"" + number + "\"}]}]}}";
+    }
+
+    private static String nativeAndStringForm(String operator, String number) {
+        return "{\"$or\": [{\"user_age\": {\"" + operator + "\": {\"$numberDecimal\": \"" + number + "\"}}}, " + stringForm(operator, number) + "]}";
+    }
+
+    private final MongoDB database = new MongoDB();
+
+    private ModelMetadata<TestModel> metadata(StorageMode storageMode) throws Exception {
+        database.setStorageMode(storageMode);
+        return ModelMetadata.of(TestModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null);
+    }
+
+    private static void assertFilter(String expected, Bson filter) {
+        Assertions.assertEquals(BsonDocument.parse(expected), filter);
+    }
+
+    @Test
+    public void testMatchingFilter() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(StorageMode.STRINGS);
+        assertFilter("{\"user_age\": \"18\"}", database.matchingFilter(metadata, "age", 18));
+        assertFilter("{\"user_age\": \"18\"}", database.matchingFilter(metadata, "user_age", 18));
+        assertFilter("{\"name\": \"rat\"}", database.matchingFilter(metadata, "name", "rat"));
+        // Key not mapped to field is matched as serialized string
+        assertFilter("{\"unknown\": \"5\"}", database.matchingFilter(metadata, "unknown", 5));
+
+        metadata = metadata(StorageMode.NATIVE_VALUES);
+        // Legacy string form is matched as well
+        assertFilter("{\"user_age\": {\"$in\": [18, \"18\"]}}", database.matchingFilter(metadata, "age", 18));
+        // Value passed as string is deserialized first, e.g. primary key of foreign key
+        assertFilter("{\"user_age\": {\"$in\": [18, \"18\"]}}", database.matchingFilter(metadata, "age", "18"));
+        assertFilter("{\"name\": \"rat\"}", database.matchingFilter(metadata, "name", "rat"));
+        assertFilter("{\"user_age\": null}", database.matchingFilter(metadata, "age", null));
+    }
+
+    @Test
+    public void testIdentifierHasOnlyNativeForm() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(StorageMode.STRINGS).withColumnName("id", MongoDB.ID_COLUMN);
+        assertFilter("{\"_id\": 5}", database.matchingFilter(metadata, "id", 5));
+        assertFilter("{\"_id\": {\"$nin\": [5]}}", database.queryFilter(metadata, Condition.notEquals("id", 5)));
+        assertFilter("{\"_id\": {\"$gt\": {\"$numberDecimal\": \"5\"}}}", database.queryFilter(metadata, Condition.greaterThan("id", 5)));
+    }
+
+    @Test
+    public void testExpressionFilter() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(StorageMode.NATIVE_VALUES);
+        assertFilter("{\"user_age\": {\"$in\": [18, \"18\"]}}", database.expressionFilter(metadata, "age", FilterExpression.EQUALS, 18));
+        assertFilter("{\"user_age\": {\"$exists\": true, \"$nin\": [18, \"18\"]}}", database.expressionFilter(metadata, "age", FilterExpression.NOT_EQUALS, 18));
+        assertFilter(nativeAndStringForm("$gt", "18"), database.expressionFilter(metadata, "age", FilterExpression.GREATER_THAN, 18));
+        assertFilter(nativeAndStringForm("$gte", "18"), database.expressionFilter(metadata, "age", FilterExpression.GREATER_THAN_EQUALS, 18));
+        assertFilter(nativeAndStringForm("$lt", "18"), database.expressionFilter(metadata, "user_age", FilterExpression.LESS_THAN, 18));
+        assertFilter(nativeAndStringForm("$lte", "18"), database.expressionFilter(metadata, "age", FilterExpression.LESS_THAN_EQUALS, "18"));
+
+        metadata = metadata(StorageMode.STRINGS);
+        assertFilter("{\"user_age\": \"18\"}", database.expressionFilter(metadata, "age", FilterExpression.EQUALS, 18));
+        assertFilter("{\"user_age\": {\"$exists\": true, \"$nin\": [\"18\"]}}", database.expressionFilter(metadata, "age", FilterExpression.NOT_EQUALS, 18));
+        assertFilter(stringForm("$gt", "18"), database.expressionFilter(metadata, "age", FilterExpression.GREATER_THAN, 18));
+    }
+
+    @Test
+    public void testRangeFilter() throws Exception {
+        metadata(StorageMode.NATIVE_DOCUMENTS);
+        assertFilter(nativeAndStringForm("$gt", "1.5"), database.rangeFilter("user_age", "$gt", 1.5));
+        assertFilter(nativeAndStringForm("$lt", "-3"), database.rangeFilter("user_age", "$lt", "-3"));
+        metadata(StorageMode.STRINGS);
+        assertFilter(stringForm("$gte", "100"), database.rangeFilter("user_age", "$gte", 100L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> database.rangeFilter("user_age", "$gt", "abc"));
+    }
+
+    @Test
+    public void testQueryFilter() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(StorageMode.NATIVE_VALUES);
+        assertFilter("{}", database.queryFilter(metadata, null));
+        assertFilter("{\"user_age\": {\"$in\": [18, \"18\"]}}", database.queryFilter(metadata, Condition.equals("age", 18)));
+        assertFilter("{\"user_age\": {\"$nin\": [18, \"18\"]}}", database.queryFilter(metadata, Condition.notEquals("age", 18)));
+        assertFilter("{\"user_age\": {\"$in\": [1, \"1\", 2, \"2\"]}}", database.queryFilter(metadata, Condition.in("age", 1, 2)));
+        assertFilter("{\"user_age\": {\"$nin\": [1, \"1\"]}}", database.queryFilter(metadata, Condition.notIn("age", "1")));
+        assertFilter("{\"name\": {\"$in\": [\"a\", \"b\"]}}", database.queryFilter(metadata, Condition.in("name", "a", "b")));
+        assertFilter(nativeAndStringForm("$gt", "18"), database.queryFilter(metadata, Condition.greaterThan("age", 18)));
+        assertFilter(nativeAndStringForm("$gte", "18"), database.queryFilter(metadata, Condition.greaterThanEquals("age", "18")));
+        assertFilter(nativeAndStringForm("$lt", "18"), database.queryFilter(metadata, Condition.lessThan("age", 18)));
+        assertFilter(nativeAndStringForm("$lte", "18"), database.queryFilter(metadata, Condition.lessThanEquals("age", 18)));
+        // Non-numeric values are compared as stored
+        assertFilter("{\"name\": {\"$gt\": \"m\"}}", database.queryFilter(metadata, Condition.greaterThan("name", "m")));
+
+        assertFilter("{\"$and\": [{\"name\": \"rat\"}, {\"user_age\": {\"$in\": [18, \"18\"]}}]}",
+                database.queryFilter(metadata, Condition.and(Condition.equals("name", "rat"), Condition.equals("age", 18))));
+        assertFilter("{\"$or\": [{\"name\": \"rat\"}, {\"$and\": [{\"name\": \"mouse\"}]}]}",
+                database.queryFilter(metadata, Condition.or(Condition.equals("name", "rat"), Condition.and(Condition.equals("name", "mouse")))));
+        // Empty AND matches every document, empty OR none
+        assertFilter("{}", database.queryFilter(metadata, Condition.and()));
+        assertFilter("{\"_id\": {\"$in\": []}}", database.queryFilter(metadata, Condition.or()));
+
+        ModelMetadata<TestModel> finalMetadata = metadata;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> database.queryFilter(finalMetadata, Condition.equals("missing", 1)));
+
+        metadata = metadata(StorageMode.STRINGS);
+        assertFilter("{\"user_age\": {\"$in\": [\"1\", \"2\"]}}", database.queryFilter(metadata, Condition.in("age", 1, 2)));
+        assertFilter(stringForm("$gt", "18"), database.queryFilter(metadata, Condition.greaterThan("age", 18)));
+    }
+
+    @Model(tableName = "test")
+    static class KeyOnlyModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+    }
+
+    @Test
+    public void testSaveSetsDeclaredFieldsOnly() throws Exception {
+        ModelMetadata<TestModel> metadata = metadata(StorageMode.NATIVE_VALUES);
+        TestModel model = new TestModel();
+        model.id = 5;
+        model.age = 18;
+        model.name = "rat";
+        Bson key = database.keyFilter(metadata, model);
+        // $set keeps columns not declared by model
+        assertFilter("{\"$set\": {\"id\": 5, \"user_age\": 18, \"name\": \"rat\"}}",
+                MongoDB.upsertUpdate(new MongoModelCodec<>(metadata, new BsonFieldCodec(database)), model, key));
+
+        ModelMetadata<TestModel> idMetadata = metadata.withColumnName("id", MongoDB.ID_COLUMN);
+        assertFilter("{\"$set\": {\"user_age\": 18, \"name\": \"rat\"}}",
+                MongoDB.upsertUpdate(new MongoModelCodec<>(idMetadata, new BsonFieldCodec(database)), model, database.keyFilter(idMetadata, model)));
+
+        ModelMetadata<KeyOnlyModel> keyOnly = ModelMetadata.of(KeyOnlyModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null).withColumnName("id", MongoDB.ID_COLUMN);
+        KeyOnlyModel keyOnlyModel = new KeyOnlyModel();
+        keyOnlyModel.id = 3;
+        assertFilter("{\"$setOnInsert\": {\"_id\": 3}}",
+                MongoDB.upsertUpdate(new MongoModelCodec<>(keyOnly, new BsonFieldCodec(database)), keyOnlyModel, database.keyFilter(keyOnly, keyOnlyModel)));
+    }
+}
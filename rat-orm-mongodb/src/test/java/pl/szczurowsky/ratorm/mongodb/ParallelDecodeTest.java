@@ -0,0 +1,83 @@
+package pl.szczurowsky.ratorm.mongodb;
+
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.mongodb.codec.BsonFieldCodec;
+import pl.szczurowsky.ratorm.mongodb.codec.MongoModelCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+public class ParallelDecodeTest {
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+    }
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private MongoModelCodec<TestModel> codec() throws Exception {
+        MongoDB database = new MongoDB();
+        ModelMetadata<TestModel> metadata = ModelMetadata.of(TestModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null);
+        return new MongoModelCodec<>(metadata, new BsonFieldCodec(database));
+    }
+
+    private static List<RawBsonDocument> documents(int count) {
+        List<RawBsonDocument> documents = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            documents.add(RawBsonDocument.parse("{\"id\": " + i + "}"));
+        return documents;
+    }
+
+    private static List<Integer> ids(List<TestModel> models) {
+        return models.stream().map(model -> model.id).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        List<TestModel> models = MongoDB.decodeChunks(documents(105).iterator(), codec(), 10, true, pool);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 105; i++)
+            expected.add(i);
+        Assertions.assertEquals(expected, ids(models));
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        List<Integer> ids = ids(MongoDB.decodeChunks(documents(105).iterator(), codec(), 10, false, pool));
+        // Chunk decoded by calling thread comes first
+        Assertions.assertEquals(100, (int) ids.get(0));
+        Collections.sort(ids);
+        Assertions.assertEquals(105, ids.size());
+        for (int i = 0; i < 105; i++)
+            Assertions.assertEquals(i, (int) ids.get(i));
+    }
+
+    @Test
+    public void testFailedChunkIsRethrown() throws Exception {
+        List<RawBsonDocument> documents = documents(30);
+        documents.set(5, RawBsonDocument.parse("{\"id\": \"not a number\"}"));
+        MongoModelCodec<TestModel> codec = codec();
+        // Exception of serializer is rethrown as is, no matter which thread decoded failed chunk
+        Assertions.assertThrows(NumberFormatException.class, () -> MongoDB.decodeChunks(documents.iterator(), codec, 10, true, pool));
+        Assertions.assertThrows(NumberFormatException.class, () -> MongoDB.decodeChunks(documents.iterator(), codec, 10, false, pool));
+    }
+}
@@ -0,0 +1,48 @@
+package pl.szczurowsky.ratorm.mongodb;
+
+import com.mongodb.client.model.UpdateOneModel;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class SchemaBackfillTest {
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+    }
+
+    private static UpdateOneModel<BsonDocument> update() {
+        return new UpdateOneModel<>(BsonDocument.parse("{\"id\": 1}"), BsonDocument.parse("{\"$set\": {\"name\": \"rat\"}}"));
+    }
+
+    @Test
+    public void testFailedBatchIsCounted() {
+        Logger logger = Logger.getLogger(SchemaBackfill.class.getName());
+        Level level = logger.getLevel();
+        // Expected warning
+        logger.setLevel(Level.OFF);
+        try {
+            MongoDB database = new MongoDB();
+            SchemaBackfill backfill = new SchemaBackfill(database);
+            backfill.setBatchSize(2);
+            for (int i = 0; i < 3; i++)
+                backfill.add(TestModel.class, update());
+            // Model isn't initialized, both batches fail
+            Assertions.assertEquals(0, backfill.flush());
+            Assertions.assertEquals(3, backfill.getFailed());
+            Assertions.assertEquals(0, backfill.flush());
+            Assertions.assertEquals(3, backfill.getFailed());
+            Assertions.assertEquals(0, database.getBackfillFailures());
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+}
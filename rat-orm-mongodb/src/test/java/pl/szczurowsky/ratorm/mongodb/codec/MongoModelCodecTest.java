@@ -0,0 +1,323 @@
+package pl.szczurowsky.ratorm.mongodb.codec;
+
+import org.bson.BSONException;
+import org.bson.BsonBinary;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.BsonType;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import pl.szczurowsky.ratorm.Model.BaseModel;
+import pl.szczurowsky.ratorm.accessor.FieldAccessorFactory;
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelConstructor;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+import pl.szczurowsky.ratorm.metadata.ModelFieldMetadata;
+import pl.szczurowsky.ratorm.metadata.ModelMetadata;
+import pl.szczurowsky.ratorm.mongodb.MongoDB;
+import pl.szczurowsky.ratorm.mongodb.enums.StorageMode;
+import pl.szczurowsky.ratorm.serializers.Serializer;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class MongoModelCodecTest {
+
+    enum TestEnum {
+        A, B
+    }
+
+    @Model(tableName = "test")
+    static class TestModel extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        int id;
+        @ModelField
+        long big;
+        @ModelField
+        double ratio;
+        @ModelField
+        boolean active;
+        @ModelField
+        String name;
+        @ModelField
+        Integer boxed;
+        @ModelField
+        UUID uuid;
+        @ModelField
+        Date date;
+        @ModelField
+        BigInteger huge;
+        @ModelField
+        TestEnum type;
+        @ModelField
+        List<Integer> numbers;
+        @ModelField
+        Set<String> tags;
+        @ModelField
+        Map<String, Long> scores;
+    }
+
+    private static TestModel model() {
+        TestModel model = new TestModel();
+        model.id = 5;
+        model.big = Long.MAX_VALUE;
+        model.ratio = 0.5;
+        model.active = true;
+        model.name = "rat";
+        model.boxed = 7;
+        model.uuid = UUID.randomUUID();
+        model.date = new Date(1000);
+        model.huge = new BigInteger("123456789012345678901234567890123456789");
+        model.type = TestEnum.B;
+        model.numbers = Arrays.asList(1, 2, 3);
+        model.tags = new LinkedHashSet<>(Arrays.asList("a", "b"));
+        model.scores = new HashMap<>();
+        model.scores.put("first", 10L);
+        model.scores.put("second", 20L);
+        return model;
+    }
+
+    private static void assertSameValues(TestModel expected, TestModel actual) {
+        Assertions.assertEquals(expected.id, actual.id);
+        Assertions.assertEquals(expected.big, actual.big);
+        Assertions.assertEquals(expected.ratio, actual.ratio);
+        Assertions.assertEquals(expected.active, actual.active);
+        Assertions.assertEquals(expected.name, actual.name);
+        Assertions.assertEquals(expected.boxed, actual.boxed);
+        Assertions.assertEquals(expected.uuid, actual.uuid);
+        Assertions.assertEquals(expected.date, actual.date);
+        Assertions.assertEquals(expected.huge, actual.huge);
+        Assertions.assertEquals(expected.type, actual.type);
+        Assertions.assertEquals(expected.numbers, actual.numbers);
+        Assertions.assertEquals(expected.tags, actual.tags);
+        Assertions.assertEquals(expected.scores, actual.scores);
+    }
+
+    private static MongoModelCodec<TestModel> codec(StorageMode storageMode) throws Exception {
+        MongoDB database = new MongoDB();
+        database.setStorageMode(storageMode);
+        ModelMetadata<TestModel> metadata = ModelMetadata.of(TestModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null);
+        return new MongoModelCodec<>(metadata, new BsonFieldCodec(database));
+    }
+
+    private static BsonDocument encode(MongoModelCodec<TestModel> codec, TestModel model) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), model, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static TestModel decode(MongoModelCodec<TestModel> codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+
+    @Test
+    public void testRoundTripInEveryMode() throws Exception {
+        TestModel model = model();
+        for (StorageMode storageMode : StorageMode.values()) {
+            MongoModelCodec<TestModel> codec = codec(storageMode);
+            assertSameValues(model, decode(codec, encode(codec, model)));
+        }
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        TestModel model = new TestModel();
+        model.id = 1;
+        // Serializers of string mode don't accept null values
+        for (StorageMode storageMode : Arrays.asList(StorageMode.NATIVE_VALUES, StorageMode.NATIVE_DOCUMENTS)) {
+            MongoModelCodec<TestModel> codec = codec(storageMode);
+            TestModel decoded = decode(codec, encode(codec, model));
+            Assertions.assertNull(decoded.name);
+            Assertions.assertNull(decoded.uuid);
+            Assertions.assertNull(decoded.numbers);
+            Assertions.assertNull(decoded.scores);
+        }
+    }
+
+    @Test
+    public void testStoredTypes() throws Exception {
+        TestModel model = model();
+        BsonDocument strings = encode(codec(StorageMode.STRINGS), model);
+        Assertions.assertEquals(BsonType.STRING, strings.get("id").getBsonType());
+        Assertions.assertEquals(BsonType.STRING, strings.get("big").getBsonType());
+        Assertions.assertEquals(BsonType.STRING, strings.get("numbers").getBsonType());
+
+        BsonDocument values = encode(codec(StorageMode.NATIVE_VALUES), model);
+        Assertions.assertEquals(BsonType.INT32, values.get("id").getBsonType());
+        Assertions.assertEquals(BsonType.INT64, values.get("big").getBsonType());
+        Assertions.assertEquals(BsonType.DOUBLE, values.get("ratio").getBsonType());
+        Assertions.assertEquals(BsonType.BOOLEAN, values.get("active").getBsonType());
+        Assertions.assertEquals(BsonType.BINARY, values.get("uuid").getBsonType());
+        Assertions.assertEquals(BsonType.DATE_TIME, values.get("date").getBsonType());
+        // 39 digits don't fit in decimal128
+        Assertions.assertEquals(BsonType.BINARY, values.get("huge").getBsonType());
+        Assertions.assertEquals(BsonType.STRING, values.get("type").getBsonType());
+        Assertions.assertEquals(BsonType.STRING, values.get("numbers").getBsonType());
+
+        BsonDocument documents = encode(codec(StorageMode.NATIVE_DOCUMENTS), model);
+        Assertions.assertEquals(BsonType.ARRAY, documents.get("numbers").getBsonType());
+        Assertions.assertEquals(BsonType.INT32, documents.getArray("numbers").get(0).getBsonType());
+        Assertions.assertEquals(BsonType.ARRAY, documents.get("tags").getBsonType());
+        Assertions.assertEquals(BsonType.DOCUMENT, documents.get("scores").getBsonType());
+        Assertions.assertEquals(BsonType.INT64, documents.getDocument("scores").get("first").getBsonType());
+    }
+
+    @Test
+    public void testLegacyStringsReadInNativeModes() throws Exception {
+        TestModel model = model();
+        BsonDocument legacy = encode(codec(StorageMode.STRINGS), model);
+        assertSameValues(model, decode(codec(StorageMode.NATIVE_VALUES), legacy));
+        assertSameValues(model, decode(codec(StorageMode.NATIVE_DOCUMENTS), legacy));
+    }
+
+    @Test
+    public void testNativeValuesReadInStringMode() throws Exception {
+        TestModel model = model();
+        BsonDocument stored = encode(codec(StorageMode.NATIVE_DOCUMENTS), model);
+        assertSameValues(model, decode(codec(StorageMode.STRINGS), stored));
+    }
+
+    @Test
+    public void testMapWithInvalidKeyStoredAsString() throws Exception {
+        TestModel model = model();
+        model.scores = Collections.singletonMap("with.dot", 1L);
+        MongoModelCodec<TestModel> codec = codec(StorageMode.NATIVE_DOCUMENTS);
+        BsonDocument document = encode(codec, model);
+        Assertions.assertEquals(BsonType.STRING, document.get("scores").getBsonType());
+        Assertions.assertEquals(model.scores, decode(codec, document).scores);
+    }
+
+    @Test
+    public void testMissingFields() throws Exception {
+        MongoModelCodec<TestModel> codec = codec(StorageMode.NATIVE_DOCUMENTS);
+        BsonDocument document = BsonDocument.parse("{\"id\": 3, \"name\": \"rat\", \"unknown\": 1}");
+
+        TestModel decoded = decode(codec, document);
+        Assertions.assertEquals(3, decoded.id);
+        Assertions.assertEquals("rat", decoded.name);
+        Assertions.assertNull(decoded.numbers);
+
+        FetchContext context = new FetchContext();
+        decode(codec.withContext(context), document);
+        Assertions.assertEquals(1, context.getIncomplete().size());
+        List<String> missing = context.getIncomplete().get(0).getMissing().stream().map(ModelFieldMetadata::getColumnName).collect(Collectors.toList());
+        Assertions.assertEquals(11, missing.size());
+        Assertions.assertFalse(missing.contains("id"));
+        Assertions.assertFalse(missing.contains("name"));
+        Assertions.assertTrue(missing.contains("scores"));
+
+        // Partial fetches read only some fields on purpose
+        FetchContext partial = new FetchContext().partial();
+        decode(codec.withContext(partial), document);
+        Assertions.assertTrue(partial.getIncomplete().isEmpty());
+    }
+
+    @Test
+    public void testBinaryDecodedByDeclaredType() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        BigInteger huge = new BigInteger("123456789012345678901234567890123456789");
+        BsonDocument document = new BsonDocument("id", new BsonInt32(1))
+                .append("uuid", new BsonBinary(uuid))
+                .append("huge", new BsonBinary(huge.toByteArray()));
+        TestModel decoded = decode(codec(StorageMode.NATIVE_VALUES), document);
+        Assertions.assertEquals(uuid, decoded.uuid);
+        Assertions.assertEquals(huge, decoded.huge);
+
+        // Binary not matching declared type is skipped instead of being read as BigInteger
+        BsonDocument mismatched = new BsonDocument("id", new BsonInt32(1))
+                .append("uuid", new BsonBinary(huge.toByteArray()))
+                .append("huge", new BsonBinary(uuid))
+                .append("name", new BsonBinary(new byte[]{1, 2}));
+        decoded = decode(codec(StorageMode.NATIVE_VALUES), mismatched);
+        Assertions.assertNull(decoded.uuid);
+        Assertions.assertNull(decoded.huge);
+        Assertions.assertNull(decoded.name);
+    }
+
+    @Test
+    public void testLegacyKeyColumnWithGeneratedIdentifier() throws Exception {
+        MongoDB database = new MongoDB();
+        ModelMetadata<TestModel> metadata = ModelMetadata.of(TestModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null)
+                .withColumnName("id", MongoDB.ID_COLUMN);
+        MongoModelCodec<TestModel> codec = new MongoModelCodec<>(metadata, new BsonFieldCodec(database), "id");
+        // Document written before primary key was moved to identifier
+        BsonDocument legacy = new BsonDocument(MongoDB.ID_COLUMN, new BsonObjectId()).append("id", new BsonString("5")).append("name", new BsonString("rat"));
+        TestModel decoded = decode(codec, legacy);
+        Assertions.assertEquals(5, decoded.id);
+        Assertions.assertEquals("rat", decoded.name);
+
+        BsonDocument moved = new BsonDocument(MongoDB.ID_COLUMN, new BsonInt32(7)).append("name", new BsonString("rat"));
+        Assertions.assertEquals(7, decode(codec, moved).id);
+    }
+
+    @Test
+    public void testRegisteredSerializerTakesPrecedence() throws Exception {
+        MongoDB database = new MongoDB();
+        database.setStorageMode(StorageMode.NATIVE_DOCUMENTS);
+        database.registerSerializer(Integer.class, new Serializer<Integer>() {
+            @Override
+            public String serialize(Object providedObject) {
+                return "#" + providedObject;
+            }
+
+            @Override
+            public Integer deserialize(String receivedObject) {
+                return Integer.parseInt(receivedObject.substring(1));
+            }
+        });
+        ModelMetadata<TestModel> metadata = ModelMetadata.of(TestModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null);
+        MongoModelCodec<TestModel> codec = new MongoModelCodec<>(metadata, new BsonFieldCodec(database));
+        TestModel model = model();
+        BsonDocument document = encode(codec, model);
+        Assertions.assertEquals("#7", document.getString("boxed").getValue());
+        Assertions.assertEquals("#1", document.getArray("numbers").get(0).asString().getValue());
+        // Primitive int keeps default serializer
+        Assertions.assertEquals(BsonType.INT32, document.get("id").getBsonType());
+        assertSameValues(model, decode(codec, document));
+    }
+
+    @Test
+    public void testIdentifierStoredNativelyInStringMode() throws Exception {
+        MongoDB database = new MongoDB();
+        database.setStorageMode(StorageMode.STRINGS);
+        ModelMetadata<TestModel> metadata = ModelMetadata.of(TestModel.class, database.getSerializers(), FieldAccessorFactory.METHOD_HANDLES, null);
+        BsonFieldCodec fieldCodec = new BsonFieldCodec(database);
+        Assertions.assertEquals(BsonType.STRING, fieldCodec.toBsonValue(metadata.getField("id"), 5).getBsonType());
+        Assertions.assertEquals(BsonType.INT32, fieldCodec.toBsonValue(metadata.withColumnName("id", MongoDB.ID_COLUMN).getPrimaryKey(), 5).getBsonType());
+    }
+
+    @Model(tableName = "nodes")
+    static class Node extends BaseModel {
+        @ModelField(isPrimaryKey = true)
+        final int id;
+        @ModelField(isForeignKey = true)
+        final Node parent;
+
+        @ModelConstructor
+        Node(int id, Node parent) {
+            this.id = id;
+            this.parent = parent;
+        }
+    }
+
+    @Test
+    public void testSelfReferenceOfConstructorBoundModel() throws Exception {
+        MongoDB database = new MongoDB() {
+            {
+                registerModel(Node.class);
+            }
+        };
+        MongoModelCodec<Node> codec = new MongoModelCodec<>(database.getModelMetadata(Node.class), new BsonFieldCodec(database)).withContext(new FetchContext());
+        // Node can't be created before itself, cycle is detected before any query
+        BsonDocument document = BsonDocument.parse("{\"id\": 1, \"parent\": \"id#__#1\"}");
+        BSONException exception = Assertions.assertThrows(BSONException.class, () -> codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build()));
+        Assertions.assertInstanceOf(InstantiationException.class, exception.getCause());
+    }
+}
@@ -0,0 +1,236 @@
+package pl.szczurowsky.ratorm.processor;
+
+import pl.szczurowsky.ratorm.annotation.Model;
+import pl.szczurowsky.ratorm.annotation.ModelField;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates ModelCodec for every class annotated with @Model.
+ * Generated codec lives in package of model, creates instances and reads/writes non-private, non-final fields directly.
+ * Encoding to database format isn't generated, it uses runtime metadata.
+ * Private and final fields and models without accessible no-args constructor fall back to reflection at runtime.
+ */
+@SupportedAnnotationTypes("pl.szczurowsky.ratorm.annotation.Model")
+public class ModelCodecProcessor extends AbstractProcessor {
+
+    private static final String CODEC_INTERFACE = "pl.szczurowsky.ratorm.codec.ModelCodec";
+    private static final String ACCESSOR_INTERFACE = "pl.szczurowsky.ratorm.accessor.FieldAccessor";
+
+    /**
+     * Names of generated codecs, written to service file in last round
+     */
+    private final List<String> generatedCodecs = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        for (TypeElement model : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Model.class))) {
+            if (!isReachable(model)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "Model isn't accessible from its package, using reflection", model);
+                continue;
+            }
+            try {
+                generatedCodecs.add(generateCodec(model));
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot generate codec: " + e.getMessage(), model);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if model can be referenced from generated class in same package
+     */
+    private boolean isReachable(TypeElement model) {
+        Element element = model;
+        while (element.getKind().isClass() || element.getKind().isInterface()) {
+            if (element.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+            Element enclosing = element.getEnclosingElement();
+            if ((enclosing.getKind().isClass() || enclosing.getKind().isInterface()) && !element.getModifiers().contains(Modifier.STATIC))
+                return false;
+            element = enclosing;
+        }
+        return true;
+    }
+
+    private String generateCodec(TypeElement model) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(model).getQualifiedName().toString();
+        String modelName = model.getQualifiedName().toString();
+        String codecName = flatName(model) + "_RatCodec";
+        String qualifiedCodecName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedCodecName, model).openWriter())) {
+            if (!packageName.isEmpty())
+                out.println("package " + packageName + ";");
+            out.println();
+            out.println("/**");
+            out.println(" * Generated by rat-orm-processor, do not edit");
+            out.println(" */");
+            out.println("public final class " + codecName + " implements " + CODEC_INTERFACE + "<" + modelName + "> {");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + modelName + "> getModelClass() {");
+            out.println("        return " + modelName + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + modelName + " newInstance() {");
+            out.println(hasAccessibleConstructor(model) ? "        return new " + modelName + "();" : "        return null;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + ACCESSOR_INTERFACE + " getAccessor(String fieldName) {");
+            out.println("        switch (fieldName) {");
+            for (VariableElement field : ElementFilter.fieldsIn(model.getEnclosedElements())) {
+                // Final fields are set by constructor or by reflection at runtime
+                if (field.getAnnotation(ModelField.class) == null || field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.FINAL))
+                    continue;
+                writeAccessor(out, modelName, field);
+            }
+            out.println("            default:");
+            out.println("                return null;");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+        return qualifiedCodecName;
+    }
+
+    private void writeAccessor(PrintWriter out, String modelName, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        String target = "((" + modelName + ") model)." + name;
+        TypeMirror type = field.asType();
+        TypeKind kind = type.getKind();
+        String boxedType = kind.isPrimitive()
+                ? processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString()
+                : processingEnv.getTypeUtils().erasure(type).toString();
+
+        out.println("            case \"" + name + "\":");
+        out.println("                return new " + ACCESSOR_INTERFACE + "() {");
+        writeMethod(out, "Object get(Object model)", "return " + target + ";");
+        writeMethod(out, "void set(Object model, Object value)", target + " = (" + boxedType + ") value;");
+        switch (kind) {
+            case INT:
+            case SHORT:
+            case BYTE:
+                writeMethod(out, "int getInt(Object model)", "return " + target + ";");
+                writeMethod(out, "long getLong(Object model)", "return " + target + ";");
+                writeMethod(out, "double getDouble(Object model)", "return " + target + ";");
+                writeMethod(out, "void setInt(Object model, int value)", target + " = " + (kind == TypeKind.INT ? "" : "(" + kind.name().toLowerCase() + ") ") + "value;");
+                break;
+            case LONG:
+                writeMethod(out, "long getLong(Object model)", "return " + target + ";");
+                writeMethod(out, "double getDouble(Object model)", "return " + target + ";");
+                writeMethod(out, "void setLong(Object model, long value)", target + " = value;");
+                break;
+            case FLOAT:
+                writeMethod(out, "double getDouble(Object model)", "return " + target + ";");
+                break;
+            case DOUBLE:
+                writeMethod(out, "double getDouble(Object model)", "return " + target + ";");
+                writeMethod(out, "void setDouble(Object model, double value)", target + " = value;");
+                break;
+            case BOOLEAN:
+                writeMethod(out, "boolean getBoolean(Object model)", "return " + target + ";");
+                writeMethod(out, "void setBoolean(Object model, boolean value)", target + " = value;");
+                break;
+            default:
+                break;
+        }
+        out.println("                };");
+    }
+
+    private void writeMethod(PrintWriter out, String signature, String body) {
+        out.println("                    @Override");
+        out.println("                    public " + signature + " {");
+        out.println("                        " + body);
+        out.println("                    }");
+    }
+
+    private boolean hasAccessibleConstructor(TypeElement model) {
+        if (model.getModifiers().contains(Modifier.ABSTRACT))
+            return false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Name of model with enclosing classes joined by underscore
+     */
+    private String flatName(TypeElement model) {
+        StringBuilder name = new StringBuilder(model.getSimpleName());
+        Element enclosing = model.getEnclosingElement();
+        while (enclosing.getKind().isClass() || enclosing.getKind().isInterface()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    /**
+     * Write service file listing generated codecs. Codecs listed by previous compilation are kept,
+     * so that incremental build of some models doesn't drop codecs of others
+     */
+    private void writeServiceFile() {
+        if (generatedCodecs.isEmpty())
+            return;
+        String path = "META-INF/services/" + CODEC_INTERFACE;
+        Set<String> codecs = new LinkedHashSet<>();
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", path);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    // Codecs of removed models aren't listed again
+                    if (!line.isEmpty() && processingEnv.getElementUtils().getTypeElement(line) != null)
+                        codecs.add(line);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No service file written yet
+        }
+        codecs.addAll(generatedCodecs);
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", path);
+            try (Writer writer = file.openWriter()) {
+                for (String codec : codecs)
+                    writer.write(codec + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write codec service file: " + e.getMessage());
+        }
+    }
+}
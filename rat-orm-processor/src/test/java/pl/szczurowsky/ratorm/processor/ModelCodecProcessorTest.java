@@ -0,0 +1,145 @@
+package pl.szczurowsky.ratorm.processor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.szczurowsky.ratorm.accessor.FieldAccessor;
+import pl.szczurowsky.ratorm.codec.ModelCodec;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ModelCodecProcessorTest {
+
+    private static final String SAMPLE_MODEL = "package sample;\n"
+            + "import pl.szczurowsky.ratorm.Model.BaseModel;\n"
+            + "import pl.szczurowsky.ratorm.annotation.Model;\n"
+            + "import pl.szczurowsky.ratorm.annotation.ModelField;\n"
+            + "@Model(tableName = \"sample\")\n"
+            + "public class SampleModel extends BaseModel {\n"
+            + "    @ModelField(isPrimaryKey = true) int id;\n"
+            + "    @ModelField short small;\n"
+            + "    @ModelField byte tiny;\n"
+            + "    @ModelField long big;\n"
+            + "    @ModelField boolean active;\n"
+            + "    @ModelField String name;\n"
+            + "    @ModelField final String constant = \"constant\";\n"
+            + "    @ModelField private String hidden;\n"
+            + "}\n";
+
+    private static final String OTHER_MODEL = "package sample;\n"
+            + "import pl.szczurowsky.ratorm.Model.BaseModel;\n"
+            + "import pl.szczurowsky.ratorm.annotation.Model;\n"
+            + "import pl.szczurowsky.ratorm.annotation.ModelField;\n"
+            + "@Model(tableName = \"other\")\n"
+            + "public class OtherModel extends BaseModel {\n"
+            + "    @ModelField(isPrimaryKey = true) int id;\n"
+            + "}\n";
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Compile sources with processor, output directory is on classpath like in incremental build
+     */
+    private void compile(Path output, String... sources) throws IOException {
+        Path sourceDirectory = Files.createDirectories(directory.resolve("src"));
+        List<File> files = new ArrayList<>();
+        for (String source : sources) {
+            String name = source.substring(source.indexOf("public class ") + 13, source.indexOf(" extends"));
+            Path file = sourceDirectory.resolve(name + ".java");
+            Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+            files.add(file.toFile());
+        }
+        Files.createDirectories(output);
+        String classpath = new File(codeSource(ModelCodec.class)).getPath() + File.pathSeparator + output;
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", classpath, "-d", output.toString(), "-s", output.toString()),
+                    null, fileManager.getJavaFileObjectsFromFiles(files));
+            task.setProcessors(Collections.singletonList(new ModelCodecProcessor()));
+            Assertions.assertTrue(task.call(), diagnostics.getDiagnostics().toString());
+        }
+    }
+
+    private static URI codeSource(Class<?> type) {
+        try {
+            return type.getProtectionDomain().getCodeSource().getLocation().toURI();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> serviceFile(Path output) throws IOException {
+        return Files.readAllLines(output.resolve("META-INF/services/" + ModelCodec.class.getName()));
+    }
+
+    @Test
+    public void testGeneratedCodec() throws Exception {
+        Path output = directory.resolve("classes");
+        compile(output, SAMPLE_MODEL);
+        Assertions.assertEquals(Collections.singletonList("sample.SampleModel_RatCodec"), serviceFile(output));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, getClass().getClassLoader())) {
+            ModelCodec<?> codec = (ModelCodec<?>) loader.loadClass("sample.SampleModel_RatCodec").getConstructor().newInstance();
+            Assertions.assertEquals("sample.SampleModel", codec.getModelClass().getName());
+            Object model = codec.newInstance();
+
+            FieldAccessor id = codec.getAccessor("id");
+            id.setInt(model, 5);
+            Assertions.assertEquals(5, id.get(model));
+            Assertions.assertEquals(5L, id.getLong(model));
+
+            FieldAccessor small = codec.getAccessor("small");
+            small.setInt(model, 7);
+            Assertions.assertEquals((short) 7, small.get(model));
+            FieldAccessor tiny = codec.getAccessor("tiny");
+            tiny.setInt(model, 3);
+            Assertions.assertEquals(3, tiny.getInt(model));
+
+            FieldAccessor big = codec.getAccessor("big");
+            big.setLong(model, Long.MAX_VALUE);
+            Assertions.assertEquals(Long.MAX_VALUE, big.getLong(model));
+
+            FieldAccessor active = codec.getAccessor("active");
+            active.setBoolean(model, true);
+            Assertions.assertTrue(active.getBoolean(model));
+
+            FieldAccessor name = codec.getAccessor("name");
+            name.set(model, "rat");
+            Assertions.assertEquals("rat", name.get(model));
+
+            // Runtime falls back to reflection for final and private fields
+            Assertions.assertNull(codec.getAccessor("constant"));
+            Assertions.assertNull(codec.getAccessor("hidden"));
+        }
+    }
+
+    @Test
+    public void testIncrementalBuildKeepsOtherCodecs() throws Exception {
+        Path output = directory.resolve("classes");
+        compile(output, SAMPLE_MODEL, OTHER_MODEL);
+        compile(output, OTHER_MODEL);
+        List<String> codecs = serviceFile(output);
+        Assertions.assertEquals(2, codecs.size());
+        Assertions.assertTrue(codecs.contains("sample.SampleModel_RatCodec"));
+        Assertions.assertTrue(codecs.contains("sample.OtherModel_RatCodec"));
+    }
+}